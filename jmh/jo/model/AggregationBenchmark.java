@@ -0,0 +1,51 @@
+package jo.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ib.client.Types.BarSize;
+
+/*
+ * One realtime bar through MarketData: stored in the 5 sec bars and cascaded to the 1 min, 5 min, 15 min and
+ * 1 hour aggregators, completing their bars on bucket boundaries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+    MarketData md;
+    Bar bar;
+    long time;
+
+    @Setup
+    public void setup() {
+        md = new MarketData();
+        md.initBars(BarSize._1_min);
+        md.initBars(BarSize._5_mins);
+        md.initBars(BarSize._15_mins);
+        md.initBars(BarSize._1_hour);
+        bar = new Bar(0, 100.1, 99.9, 100, 100.01, 100, 100, 10);
+    }
+
+    @Benchmark
+    public Object realtimeBar() {
+        time += 5;
+        bar.setTime(time);
+        bar.setClose(100 + (time & 15) * 0.01);
+        md.realtimeBar(bar);
+        return md;
+    }
+}
@@ -0,0 +1,49 @@
+package jo.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Appending a bar to a bounded Bars (a day of 5 sec bars, and a small one compacting often), with the sequence
+ * lock and the sequencer publish. Memory stays flat however long it runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarsAppendBenchmark {
+    @Param({ "256", "5760" })
+    int capacity;
+
+    Bars bars;
+    Bar bar;
+    long time;
+
+    @Setup
+    public void setup() {
+        bars = new Bars(capacity);
+        bar = new Bar(0, 100.1, 99.9, 100, 100.01, 100, 100, 10);
+    }
+
+    @Benchmark
+    public int addBar() {
+        time += 5;
+        bar.setTime(time);
+        bar.setClose(100 + (time & 15) * 0.01);
+        bars.addBar(bar);
+        return bars.getSize();
+    }
+}
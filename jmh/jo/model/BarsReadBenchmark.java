@@ -0,0 +1,85 @@
+package jo.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Scans the last "scan" bars of a bounded Bars summing the true range. Run with -prof gc to compare
+ * gc.alloc.rate.norm: get(i) allocates a Bar per step, the cursor and forEach none.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarsReadBenchmark {
+    @Param({ "100", "1000" })
+    int scan;
+
+    Bars bars;
+    BarCursor cursor;
+    int from;
+    int to;
+    double sum;
+    BarVisitor trueRange = bar -> sum += bar.getHigh() - bar.getLow();
+
+    @Setup
+    public void setup() {
+        bars = new Bars(4096);
+        for (int i = 0; i < 10_000; i++) {
+            double price = 100 + Math.sin(i / 50.0);
+            bars.addBar(new Bar(i * 5, price + 0.1, price - 0.1, price, price + 0.01, price, 100 + i % 7, 10));
+        }
+        cursor = bars.cursor();
+        to = bars.getSize();
+        from = to - scan;
+    }
+
+    @Benchmark
+    public double getBar() {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            Bar bar = bars.get(i);
+            sum += bar.getHigh() - bar.getLow();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double cursor() {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            cursor.at(i);
+            sum += cursor.getHigh() - cursor.getLow();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double forEach() {
+        sum = 0;
+        cursor.forEach(from, to, trueRange);
+        return sum;
+    }
+
+    @Benchmark
+    public double columns() {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += bars.get(BarType.HIGH, i) - bars.get(BarType.LOW, i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,75 @@
+package jo.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections4.queue.CircularFifoQueue;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ib.client.TickType;
+
+/*
+ * One RT_TRD_VOLUME tick from string to stored trade: split + MarketDataTrade + synchronized CircularFifoQueue
+ * (the former MarketData path) against RtVolumeParser + TradeTape, and the whole MarketData.tickString path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtVolumeBenchmark {
+    private static final String[] TICKS = {
+            "170.84;100;1519636841808;2100;170.83991182;true",
+            "170.85;300;1519636841912;2400;170.83994117;false",
+            "170.83;1;1519636842050;2401;170.83994110;true",
+            "170.86;2500;1519636842133;4901;170.84512399;false",
+    };
+
+    int tick;
+    CircularFifoQueue<MarketDataTrade> trades = new CircularFifoQueue<>(4 * 4096);
+    TradeTape tape = new TradeTape(4 * 4096);
+    RtVolumeParser parser = new RtVolumeParser();
+    MarketData md = new MarketData();
+
+    private String nextTick() {
+        return TICKS[tick++ & 3];
+    }
+
+    @Benchmark
+    public Object splitAndQueue() {
+        String[] split = StringUtils.splitPreserveAllTokens(nextTick(), ';');
+        MarketDataTrade trade = new MarketDataTrade(
+                Double.parseDouble(split[0]),
+                Integer.parseInt(split[1]),
+                Long.parseLong(split[2]),
+                Integer.parseInt(split[3]),
+                Double.parseDouble(split[4]));
+        synchronized (trades) {
+            trades.add(trade);
+        }
+        return trades;
+    }
+
+    @Benchmark
+    public long parseAndTape() {
+        if (parser.parse(nextTick())) {
+            tape.add(parser.getPrice(), parser.getSize(), parser.getTime(), parser.getDayVolume(), parser.getVwap());
+        }
+        return tape.getCount();
+    }
+
+    @Benchmark
+    public Object marketData() {
+        md.tickString(TickType.RT_TRD_VOLUME, nextTick());
+        return md;
+    }
+}
@@ -0,0 +1,240 @@
+package jo.recording;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ib.client.TickType;
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+import jo.model.Bar;
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.EventTypeRegistry;
+import jo.recording.event.MarketDepthEvent;
+import jo.recording.event.RealTimeBarEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.recording.event.TickSizeEvent;
+import jo.recording.event.TickStringEvent;
+
+/*
+ * Market journal encodings, JSON lines as the recorders used to write them against the binary format, streamed or
+ * in a MappedJournal, on a recorded-like mix of ticks, RT volume, depth updates and bars. Scores are events per
+ * second, bytes per event are printed at setup.
+ *
+ * gradle jmh -PjmhInclude=EventCodecBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+    private static final int EVENTS = 10_000;
+
+    List<AbstractEvent> events;
+    ObjectMapper objectMapper;
+    byte[] json;
+    byte[] binary;
+    OutputStream sink;
+    File journalDir;
+    MappedJournal journal;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        events = events();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeJson(out);
+        json = out.toByteArray();
+
+        out = new ByteArrayOutputStream();
+        writeBinary(out);
+        binary = out.toByteArray();
+
+        System.out.println(String.format("%nBytes/event: json %.1f, binary %.1f",
+                json.length / (double) EVENTS, binary.length / (double) EVENTS));
+
+        journalDir = Files.createTempDirectory("journal").toFile();
+        try (MappedJournal journal = new MappedJournal(journalDir)) {
+            for (AbstractEvent event : events) {
+                journal.write(event);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        journal = new MappedJournal(Files.createTempDirectory("journal").toFile());
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteJournal() throws IOException {
+        journal.close();
+        delete(journal.getDir());
+    }
+
+    @TearDown
+    public void tearDown() {
+        delete(journalDir);
+    }
+
+    private static void delete(File dir) {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private List<AbstractEvent> events() {
+        Random random = new Random(42);
+        String[] marketMakers = { "NSDQ", "ARCA", "BATS", "EDGX", "IEX" };
+        List<AbstractEvent> events = new ArrayList<>(EVENTS);
+        long time = 1_525_859_517_826L;
+        long barTime = time / 1000;
+        double price = 187;
+        while (events.size() < EVENTS) {
+            time += random.nextInt(20);
+            price += (random.nextInt(3) - 1) * 0.01;
+            int kind = random.nextInt(100);
+
+            AbstractEvent event;
+            if (kind < 30) {
+                event = new TickPriceEvent(random.nextBoolean() ? TickType.BID : TickType.ASK, price);
+            } else if (kind < 55) {
+                event = new TickSizeEvent(random.nextBoolean() ? TickType.BID_SIZE : TickType.ASK_SIZE, 100 * random.nextInt(20));
+            } else if (kind < 65) {
+                event = new TickStringEvent(TickType.RT_VOLUME, String.format("%.2f;%d;%d;%d;%.4f;true",
+                        price, 100 * random.nextInt(5), time, 1_500_000 + events.size(), price));
+            } else if (kind < 99) {
+                event = new MarketDepthEvent(random.nextInt(10), marketMakers[random.nextInt(marketMakers.length)],
+                        DeepType.UPDATE, random.nextBoolean() ? DeepSide.BUY : DeepSide.SELL, price, 100 * random.nextInt(20));
+            } else {
+                barTime += 5;
+                event = new RealTimeBarEvent(new Bar(barTime, price + 0.02, price - 0.02, price, price + 0.01, price, 1200, 14));
+            }
+            event.setTime(time);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private void writeJson(OutputStream out) throws IOException {
+        PrintWriter ps = new PrintWriter(out);
+        for (AbstractEvent event : events) {
+            ps.println(objectMapper.writeValueAsString(event));
+        }
+        ps.flush();
+    }
+
+    private void writeBinary(OutputStream out) throws IOException {
+        BinaryEventWriter writer = new BinaryEventWriter(out);
+        for (AbstractEvent event : events) {
+            writer.write(event);
+        }
+        writer.flush();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void jsonWrite() throws IOException {
+        writeJson(sink);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void binaryWrite() throws IOException {
+        writeBinary(sink);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void journalWrite() throws IOException {
+        for (AbstractEvent event : events) {
+            journal.write(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int jsonRead() throws IOException {
+        // as PlayerApp used to read
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8));
+        int count = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            JsonNode node = objectMapper.readTree(line);
+            Class<? extends AbstractEvent> type = EventTypeRegistry.getByType(node.get("type").textValue());
+            count += objectMapper.convertValue(node, type).getType().length();
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int binaryRead() throws IOException {
+        BinaryEventReader in = new BinaryEventReader(new ByteArrayInputStream(binary));
+        int count = 0;
+        AbstractEvent event;
+        while ((event = in.read()) != null) {
+            count += event.getType().length();
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long journalRead() throws IOException {
+        // in place, no event objects
+        JournalReader in = JournalReader.open(journalDir);
+        long sum = 0;
+        while (in.next()) {
+            EventRecord record = in.record();
+            sum += record.getTime() + record.getSize();
+        }
+        in.close();
+        return sum;
+    }
+}
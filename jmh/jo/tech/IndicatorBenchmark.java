@@ -0,0 +1,119 @@
+package jo.tech;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jo.model.Bar;
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * Indicators as bots use them: a new bar, then get(). appendOnly is the baseline to subtract. The *FromScratch
+ * benchmarks compute the whole series of "bars" bars, bar by bar and in batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicatorBenchmark {
+    private static final int PERIOD = 20;
+
+    @Param({ "1000", "10000", "100000" })
+    int size;
+
+    Bars bars;
+    Bar bar;
+    long time;
+    double[] close;
+
+    EMA ema;
+    SMA sma;
+    ATR atr;
+    DonchianChannel donchian;
+
+    @Setup
+    public void setup() {
+        bars = new Bars(size);
+        bar = new Bar();
+        close = new double[size];
+        for (int i = 0; i < size; i++) {
+            nextBar();
+            close[i] = bar.getClose();
+        }
+
+        ema = new EMA(bars, BarType.CLOSE, PERIOD, 0);
+        sma = new SMA(bars, BarType.CLOSE, PERIOD, 0);
+        atr = new ATR(bars, PERIOD, 0);
+        donchian = new DonchianChannel(bars, PERIOD, PERIOD);
+
+        // first get() catches up with the history
+        ema.get();
+        sma.get();
+        atr.get();
+        donchian.get();
+    }
+
+    private void nextBar() {
+        time += 5;
+        double price = 100 + Math.sin(time / 250.0);
+        bar.setTime(time);
+        bar.setHigh(price + 0.1);
+        bar.setLow(price - 0.1);
+        bar.setOpen(price);
+        bar.setClose(price + 0.01);
+        bars.addBar(bar);
+    }
+
+    @Benchmark
+    public int appendOnly() {
+        nextBar();
+        return bars.getSize();
+    }
+
+    @Benchmark
+    public Double ema() {
+        nextBar();
+        return ema.get();
+    }
+
+    @Benchmark
+    public Double sma() {
+        nextBar();
+        return sma.get();
+    }
+
+    @Benchmark
+    public Double atr() {
+        nextBar();
+        return atr.get();
+    }
+
+    @Benchmark
+    public Channel donchian() {
+        nextBar();
+        return donchian.get();
+    }
+
+    @Benchmark
+    public double emaFromScratch() {
+        return new EmaSeries(bars, BarType.CLOSE, PERIOD).get(0);
+    }
+
+    @Benchmark
+    public double[] emaBatch() {
+        return Batch.ema(close, PERIOD);
+    }
+}
@@ -0,0 +1,98 @@
+package jo.tech;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Column kernels, scalar against vector, over a day (4680) to a month (~100k) and a quarter (~300k) of 5 sec bars.
+ * Time per call, divide by size for the time per value.
+ *
+ * gradle jmh -PjmhInclude=KernelBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+    private static final int PERIOD = 20;
+
+    @Param({ "scalar", "vector" })
+    String kernels;
+
+    @Param({ "4680", "100000", "300000" })
+    int size;
+
+    Kernels k;
+    double[] high;
+    double[] low;
+    double[] close;
+    double[] out;
+
+    @Setup
+    public void setup() {
+        k = Kernels.of(kernels);
+
+        Random random = new Random(42);
+        high = new double[size];
+        low = new double[size];
+        close = new double[size];
+        out = new double[size];
+        double price = 100;
+        for (int i = 0; i < size; i++) {
+            price += random.nextGaussian() * 0.01;
+            close[i] = price;
+            high[i] = price + random.nextDouble() * 0.05;
+            low[i] = price - random.nextDouble() * 0.05;
+        }
+    }
+
+    @Benchmark
+    public double[] rollingSum() {
+        k.rollingSum(close, PERIOD, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] rollingMean() {
+        k.rollingMean(close, PERIOD, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] trueRange() {
+        k.trueRange(high, low, close, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] pctChange() {
+        k.pctChange(close, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] rollingMax() {
+        k.rollingMax(high, PERIOD, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] rollingMin() {
+        k.rollingMin(low, PERIOD, out);
+        return out;
+    }
+}
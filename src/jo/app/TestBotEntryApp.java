@@ -64,12 +64,12 @@ public class TestBotEntryApp {
     }
 
     private void run() {
-        int size = srcBars.getSize();
-        for (int i = 1; i < size; i++) {
-            Bar bar = srcBars.getBarFromEnd(size - i);
-            maBars.addBar(bar);
+        // addBar copies the values, one Bar is enough
+        Bar bar = new Bar();
+        srcBars.forEach(0, srcBars.getSize() - 1, b -> {
+            maBars.addBar(b.copyTo(bar));
             mayBeOpenPosition();
-        }
+        });
     }
 
     private void mayBeOpenPosition() {
@@ -1,29 +1,28 @@
 package jo.app.data;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.core.io.JsonEOFException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ib.controller.Formats;
 
 import gnu.trove.list.TDoubleList;
 import gnu.trove.list.array.TDoubleArrayList;
+import jo.model.Bar;
+import jo.model.BarType;
 import jo.model.Bars;
 import jo.model.StatVar;
 import jo.model.Stats;
+import jo.recording.EventReader;
+import jo.recording.EventRecord;
+import jo.recording.JournalReader;
 import jo.recording.event.AbstractEvent;
-import jo.recording.event.EventTypeRegistry;
 import jo.recording.event.RealTimeBarEvent;
 
 public class CreateContractStatsApp {
@@ -44,29 +43,24 @@ public class CreateContractStatsApp {
     private static void calculate(Bars bars, String symbol) throws Exception {
         //System.out.println(symbol);
 
-        TDoubleList open = bars.getOpen();
-        TDoubleList close = bars.getClose();
-        TDoubleList low = bars.getLow();
-        TDoubleList high = bars.getHigh();
+        int size = bars.getSize();
 
-        int size = open.size();
+        TDoubleList hiLoDiffs = new TDoubleArrayList(size);
+        TDoubleList openCloseDiffs = new TDoubleArrayList(size);
 
-        TDoubleList hiLoDiffs = new TDoubleArrayList();
-        TDoubleList openCloseDiffs = new TDoubleArrayList();
-
-        for (int i = 0; i < size; i++) {
-            double hiLoDiff = high.get(i) - low.get(i);
+        bars.forEach(0, size, bar -> {
+            double hiLoDiff = bar.getHigh() - bar.getLow();
             hiLoDiffs.add(hiLoDiff);
 
-            double openCloseDiff = Math.abs(open.get(i) - close.get(i));
+            double openCloseDiff = Math.abs(bar.getOpen() - bar.getClose());
             openCloseDiffs.add(openCloseDiff);
-        }
+        });
 
         hiLoDiffs.sort();
         openCloseDiffs.sort();
 
         Stats stat = new Stats();
-        stat.setLastKnownPrice(close.get(size - 1));
+        stat.setLastKnownPrice(bars.getLastBar(BarType.CLOSE));
         stat.setHiLo(StatVar.of(hiLoDiffs));
         stat.setOpenClose(StatVar.of(openCloseDiffs));
 
@@ -91,36 +85,36 @@ public class CreateContractStatsApp {
     private static Bars loadBars(File file) {
         Bars bars = new Bars();
 
-        List<AbstractEvent> events = loadEvents(file);
-        for (AbstractEvent event : events) {
-            if (event instanceof RealTimeBarEvent) {
-                RealTimeBarEvent rtEvent = (RealTimeBarEvent) event;
-                bars.addBar(rtEvent.getBar());
+        if (file.isDirectory()) {
+            // mapped journal, bars read in place
+            try (JournalReader in = JournalReader.open(file)) {
+                Bar bar = new Bar();
+                while (in.next()) {
+                    EventRecord record = in.record();
+                    if (record.getType() == EventRecord.REAL_TIME_BAR) {
+                        bars.addBar(record.getBar(bar));
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
+            return bars;
         }
 
-        return bars;
-    }
-
-    private static List<AbstractEvent> loadEvents(File file) {
-        List<AbstractEvent> events = new ArrayList<>();
-
-        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = in.readLine()) != null) {
-                JsonNode json = objectMapper.readTree(line);
-                String type = json.get("type").textValue();
-                Class<? extends AbstractEvent> valueType = EventTypeRegistry.getByType(type);
-
-                AbstractEvent event = objectMapper.convertValue(json, valueType);
-                events.add(event);
+        // streamed, binary journal or JSON lines
+        try (EventReader in = EventReader.open(file)) {
+            AbstractEvent event;
+            while ((event = in.read()) != null) {
+                if (event instanceof RealTimeBarEvent) {
+                    RealTimeBarEvent rtEvent = (RealTimeBarEvent) event;
+                    bars.addBar(rtEvent.getBar());
+                }
             }
-        } catch (JsonEOFException eofEx) {
-            // ignore, file was not closed properly
-        } catch (Exception e) {
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return events;
+
+        return bars;
     }
 
 }
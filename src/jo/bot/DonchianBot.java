@@ -21,12 +21,12 @@ import jo.tech.DonchianChannel;
 import jo.tech.SMA;
 import jo.tech.StopTrail;
 import jo.util.AsyncExec;
-import jo.util.SyncSignal;
+import jo.util.Subscription;
 
 public class DonchianBot extends BaseBot {
-    private SyncSignal signal;
-    private SyncSignal barSignal;
-    private SyncSignal priceSignal;
+    private Subscription subscription;
+    private Subscription barSubscription;
+    private Subscription priceSubscription;
 
     private DonchianChannel donchian;
     private SMA fastSMA;
@@ -58,9 +58,9 @@ public class DonchianBot extends BaseBot {
         this.md = ctx.initMarketData(contract);
         this.bars = md.getBars(BarSize._5_secs);
 
-        this.barSignal = bars.getSignal();
-        this.priceSignal = md.getSignal();
-        this.signal = priceSignal;
+        this.barSubscription = new Subscription(bars.getSequencer());
+        this.priceSubscription = new Subscription(md.getQuoteSequencer(), md.getTradeSequencer(), bars.getSequencer());
+        this.subscription = priceSubscription;
 
         this.donchian = new DonchianChannel(bars, BarType.LOW, BarType.HIGH, lowerPeriod, upperPeriod);
         this.fastSMA = new SMA(bars, BarType.CLOSE, fastSMAPeriod, 0);
@@ -87,7 +87,7 @@ public class DonchianBot extends BaseBot {
         if (botState == BotState.OPENNING_POSITION && System.currentTimeMillis() > cancelOpenOrderAfter) {
             log.info("Too slow, cancelling open order");
             ib.cancelOrder(openOrder.orderId());
-            signal = priceSignal;
+            subscription = priceSubscription;
             return;
         }
 
@@ -98,12 +98,12 @@ public class DonchianBot extends BaseBot {
         // Tight stop loss on entry, normal after time or positive
 
         if (botState == BotState.READY_TO_OPEN) {
-            signal = priceSignal;
+            subscription = priceSubscription;
             mayBeOpenPosition();
         }
 
         if (botState == BotState.PROFIT_WAITING) {
-            signal = barSignal;
+            subscription = barSubscription;
             mayBeUpdateProfitTaker();
         }
     }
@@ -269,7 +269,7 @@ public class DonchianBot extends BaseBot {
 
     public void run() {
         try {
-            while (signal.waitForSignal()) {
+            while (subscription.await()) {
                 if (Thread.interrupted()) {
                     log.info("Thread Interrupted EXIT");
                     return;
@@ -15,6 +15,7 @@ import jo.filter.NasdaqRegularHours;
 import jo.model.BarType;
 import jo.model.Bars;
 import jo.model.Context;
+import jo.model.Quote;
 import jo.position.ATRMaxOfTrailAmountStrategy;
 import jo.position.ATRPercentileOfTrailAmountStrategy;
 import jo.position.PositionSizeStrategy;
@@ -26,24 +27,18 @@ import jo.tech.EMA;
 import jo.tech.StopTrail;
 import jo.util.AsyncExec;
 import jo.util.LongShort;
-import jo.util.NullUtils;
 import jo.util.Orders;
-import jo.util.SyncSignal;
+import jo.util.Subscription;
 
 public class MovingAverageAtrLimitBot extends BaseBot {
     private boolean whatIf = false;
-    private SyncSignal signal;
-    private SyncSignal priceSignal;
+    private Subscription subscription;
     private Bars maBars;
     private Bars rtBars;
+    private final Quote quote = new Quote();
 
     private EMA maEdge0;
-    private EMA maEdge1;
-    private EMA maEdge2;
-
-    private EMA maRt0;
-    private EMA maRt1;
-    private EMA maRt2;
+    private MovingAverageEntryRule entryRule;
 
     private int rtPeriod = 5; // last 25 seconds
     public int period = 18;
@@ -81,20 +76,14 @@ public class MovingAverageAtrLimitBot extends BaseBot {
         this.ib = ctx.getIb();
 
         this.md = ctx.initMarketData(contract);
-        this.priceSignal = md.getSignal();
-        this.signal = priceSignal;
+        this.subscription = new Subscription(md.getQuoteSequencer(), md.getTradeSequencer(), md.getBarSequencer(BarSize._5_secs));
 
         this.rtBars = md.getBars(BarSize._5_secs);
-        this.maRt0 = new EMA(rtBars, BarType.CLOSE, rtPeriod, 0);
-        this.maRt1 = new EMA(rtBars, BarType.CLOSE, rtPeriod, 1);
-        this.maRt2 = new EMA(rtBars, BarType.CLOSE, rtPeriod, 2);
-
         this.maEdgeRt0 = new EMA(rtBars, BarType.CLOSE, 36, 0);
 
         this.maBars = md.getBars(BarSize._1_min);
         this.maEdge0 = new EMA(maBars, BarType.CLOSE, period, 0);
-        this.maEdge1 = new EMA(maBars, BarType.CLOSE, period, 1);
-        this.maEdge2 = new EMA(maBars, BarType.CLOSE, period, 2);
+        this.entryRule = new MovingAverageEntryRule(quote, rtBars, rtPeriod, 36, maBars, period);
 
         this.changeO0 = new BarsPctChange(maBars, BarType.OPEN, 0);
         this.changeO1 = new BarsPctChange(maBars, BarType.OPEN, 1);
@@ -172,84 +161,24 @@ public class MovingAverageAtrLimitBot extends BaseBot {
         if (barSize < period || barSize == skipBarIdx)
             return;
 
-        double lastPrice = md.getLastPrice();
-        double bidPrice = md.getBidPrice(); // buy
-        double askPrice = md.getAskPrice(); // sell
-
-        Double maEdgeRtVal0 = fixPriceVariance(maEdgeRt0.get());
-
-        Double maEdgeVal0 = fixPriceVariance(maEdge0.get());
-        Double maEdgeVal1 = fixPriceVariance(maEdge1.get());
-        Double maEdgeVal2 = fixPriceVariance(maEdge2.get());
+        md.getQuote(quote);
+        double lastPrice = quote.getLastPrice();
+        double bidPrice = quote.getBidPrice(); // buy
+        double askPrice = quote.getAskPrice(); // sell
 
-        Double maRtVal0 = fixPriceVariance(maRt0.get());
-        Double maRtVal1 = fixPriceVariance(maRt1.get());
-        Double maRtVal2 = fixPriceVariance(maRt2.get());
-
-        double barRtLow0 = rtBars.getLastBar(BarType.LOW, 0);
-        double barRtHigh0 = rtBars.getLastBar(BarType.HIGH, 0);
-
-        double barLow0 = maBars.getLastBar(BarType.LOW, 0);
-        double barLow1 = maBars.getLastBar(BarType.LOW, 1);
-        double barLow2 = maBars.getLastBar(BarType.LOW, 2);
-        double barHigh0 = maBars.getLastBar(BarType.HIGH, 0);
-        double barHigh1 = maBars.getLastBar(BarType.HIGH, 1);
-        double barHigh2 = maBars.getLastBar(BarType.HIGH, 2);
-        double barOpen0 = maBars.getLastBar(BarType.OPEN, 0);
-        double barOpen1 = maBars.getLastBar(BarType.OPEN, 1);
-        double barOpen2 = maBars.getLastBar(BarType.OPEN, 2);
-        double barClose0 = maBars.getLastBar(BarType.CLOSE, 0);
-        double barClose1 = maBars.getLastBar(BarType.CLOSE, 1);
-        double barClose2 = maBars.getLastBar(BarType.CLOSE, 2);
-
-        Double trailAmount = trailAmountStrategy.getTrailAmount(md);
-        Double atrVal = atr1x.get();
-
-        if (NullUtils.anyNull(maEdgeVal0, maEdgeVal1, maEdgeVal2, maEdgeRtVal0))
+        entryRule.evaluate();
+        if (!entryRule.isReady())
             return;
 
-        if (NullUtils.anyNull(trailAmount, atrVal))
+        Double trailAmount = trailAmountStrategy.getTrailAmount(md);
+        if (trailAmount == null)
             return;
 
-        double maEdgeValChange1 = BarsPctChange.of(maEdgeVal2, maEdgeVal1);
-        double maEdgeValChange0 = BarsPctChange.of(maEdgeVal1, maEdgeVal0);
-
-        double maRtValChange1 = BarsPctChange.of(maRtVal2, maRtVal1);
-        double maRtValChange0 = BarsPctChange.of(maRtVal1, maRtVal0);
-
-        boolean maEdgeGoingUp = maEdgeValChange1 > 0 && maEdgeValChange0 > 0;
-        boolean maEdgeGoingDown = maEdgeValChange1 < 0 && maEdgeValChange0 < 0;
-
-        boolean maRtGoingUp = maRtValChange1 > 0 && maRtValChange0 > 0;
-        boolean maRtGoingDown = maRtValChange1 < 0 && maRtValChange0 < 0;
-
+        double atrVal = entryRule.getAtr();
+        boolean openLong = entryRule.isOpenLong();
+        boolean openShort = entryRule.isOpenShort();
         boolean placeOrders = false;
 
-        boolean openLong = //maEdgeGoingUp
-                maRtGoingUp
-                        && Math.abs(barClose0 - barOpen0) < atrVal
-                        && barClose0 > barOpen0
-                        && barClose1 > barOpen1
-                        //&& barClose2 > barOpen2
-                        && barLow0 > maEdgeVal0
-                        && barRtLow0 > maEdgeRtVal0
-                        && lastPrice > maEdgeVal0;
-        //&& bidPrice > maEdgeVal0
-        //&& askPrice > maEdgeVal0;
-
-        boolean openShort = //maEdgeGoingDown
-                maRtGoingDown
-                        && Math.abs(barClose0 - barOpen0) < atrVal
-                        && barClose0 < barOpen0
-                        && barClose1 < barOpen1
-                        //&& barClose2 < barOpen2
-                        && barHigh0 < maEdgeVal0
-                        && barRtHigh0 < maEdgeRtVal0
-                        && lastPrice < maEdgeVal0
-        //&& bidPrice < maEdgeVal0
-        //&& askPrice < maEdgeVal0
-        ;
-
         if (openLong) {
             String tradeRef = updateTradeRef();
             final double openPrice = lastPrice;
@@ -257,7 +186,7 @@ public class MovingAverageAtrLimitBot extends BaseBot {
             final int totalQuantity = positionSize.getPositionSize(openPrice, trailAmount);
             
 
-            log.info("Price: last {}, bid {}, ask {}, ask-bid {}", fmt(md.getLastPrice()), fmt(bidPrice), fmt(askPrice), fmt(askPrice - bidPrice));
+            log.info("Price: last {}, bid {}, ask {}, ask-bid {}", fmt(lastPrice), fmt(bidPrice), fmt(askPrice), fmt(askPrice - bidPrice));
             log.info("Go Long: open {}, stop loss {}", fmt(openPrice), fmt(closePrice));
 
             openOrder = Orders.newLimitBuyOrder(ib, totalQuantity, openPrice);            
@@ -275,7 +204,7 @@ public class MovingAverageAtrLimitBot extends BaseBot {
             final double closePrice = lastPrice - Math.max(atrVal, 0.05);
             final int totalQuantity = positionSize.getPositionSize(openPrice, trailAmount);
 
-            log.info("Price: last {}, bid {}, ask {}, ask-bid {}", fmt(md.getLastPrice()), fmt(bidPrice), fmt(askPrice), fmt(askPrice - bidPrice));
+            log.info("Price: last {}, bid {}, ask {}, ask-bid {}", fmt(lastPrice), fmt(bidPrice), fmt(askPrice), fmt(askPrice - bidPrice));
             log.info("Go Short: open {}, close {}", fmt(openPrice), fmt(closePrice));
 
             openOrder = Orders.newLimitSellOrder(ib, totalQuantity, lastPrice);
@@ -365,7 +294,7 @@ public class MovingAverageAtrLimitBot extends BaseBot {
 
     public void run() {
         try {
-            while (signal.waitForSignal()) {
+            while (subscription.await()) {
                 if (Thread.interrupted()) {
                     log.info("Thread Interrupted EXIT");
                     return;
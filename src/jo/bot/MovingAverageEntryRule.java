@@ -0,0 +1,125 @@
+package jo.bot;
+
+import jo.model.BarType;
+import jo.model.Bars;
+import jo.model.Quote;
+import jo.rule.CompiledRule;
+import jo.rule.Expr;
+import jo.tech.Indicators;
+import jo.tech.StreamingIndicator;
+
+/*
+ * Entry conditions of the moving average bots: the realtime EMA going up (down) for two bars, a last bar and the
+ * one before closing up (down) with a body under the ATR, and bar low (high), realtime bar low (high) and last price
+ * above (below) the edge EMAs.
+ *
+ * Compiled once, evaluate() on every tick only recomputes the terms of the bars or quote that changed. The last
+ * price is read from the bot's quote snapshot, the one its orders are priced from. The same definition runs live
+ * and in replay.
+ */
+class MovingAverageEntryRule {
+    private final CompiledRule rule;
+    private final int ready;
+    private final int openLong;
+    private final int openShort;
+    private final int lastPrice;
+    private final int atr;
+    private final int[] maEdge = new int[3];
+
+    MovingAverageEntryRule(Quote quote, Bars rtBars, int rtPeriod, int edgeRtPeriod, Bars maBars, int period) {
+        StreamingIndicator maRtSeries = Indicators.of(rtBars).ema(BarType.CLOSE, rtPeriod);
+        StreamingIndicator maEdgeRtSeries = Indicators.of(rtBars).ema(BarType.CLOSE, edgeRtPeriod);
+        StreamingIndicator maEdgeSeries = Indicators.of(maBars).ema(BarType.CLOSE, period);
+
+        Expr maRt0 = Expr.indicator(maRtSeries, 0).fixPriceVariance();
+        Expr maRt1 = Expr.indicator(maRtSeries, 1).fixPriceVariance();
+        Expr maRt2 = Expr.indicator(maRtSeries, 2).fixPriceVariance();
+        Expr maEdgeRt0 = Expr.indicator(maEdgeRtSeries, 0).fixPriceVariance();
+        Expr maEdge0 = Expr.indicator(maEdgeSeries, 0).fixPriceVariance();
+        Expr maEdge1 = Expr.indicator(maEdgeSeries, 1).fixPriceVariance();
+        Expr maEdge2 = Expr.indicator(maEdgeSeries, 2).fixPriceVariance();
+        Expr atr = Expr.indicator(Indicators.of(maBars).atr(period - 1), 0);
+        Expr last = Expr.lastPrice(quote);
+
+        Expr barRtLow0 = Expr.bar(rtBars, BarType.LOW, 0);
+        Expr barRtHigh0 = Expr.bar(rtBars, BarType.HIGH, 0);
+        Expr barLow0 = Expr.bar(maBars, BarType.LOW, 0);
+        Expr barHigh0 = Expr.bar(maBars, BarType.HIGH, 0);
+        Expr barOpen0 = Expr.bar(maBars, BarType.OPEN, 0);
+        Expr barOpen1 = Expr.bar(maBars, BarType.OPEN, 1);
+        Expr barClose0 = Expr.bar(maBars, BarType.CLOSE, 0);
+        Expr barClose1 = Expr.bar(maBars, BarType.CLOSE, 1);
+
+        Expr zero = Expr.constant(0);
+        Expr maRtChange1 = maRt1.changeFrom(maRt2);
+        Expr maRtChange0 = maRt0.changeFrom(maRt1);
+        Expr smallBody = barClose0.minus(barOpen0).abs().lt(atr);
+
+        Expr ready = Expr.defined(maEdge0, maEdge1, maEdge2, maEdgeRt0, atr);
+
+        Expr openLong = Expr.and(
+                maRtChange1.gt(zero),
+                maRtChange0.gt(zero),
+                smallBody,
+                barClose0.gt(barOpen0),
+                barClose1.gt(barOpen1),
+                barLow0.gt(maEdge0),
+                barRtLow0.gt(maEdgeRt0),
+                last.gt(maEdge0));
+
+        Expr openShort = Expr.and(
+                maRtChange1.lt(zero),
+                maRtChange0.lt(zero),
+                smallBody,
+                barClose0.lt(barOpen0),
+                barClose1.lt(barOpen1),
+                barHigh0.lt(maEdge0),
+                barRtHigh0.lt(maEdgeRt0),
+                last.lt(maEdge0));
+
+        this.rule = CompiledRule.compile(ready, openLong, openShort);
+        this.ready = rule.slotOf(ready);
+        this.openLong = rule.slotOf(openLong);
+        this.openShort = rule.slotOf(openShort);
+        this.lastPrice = rule.slotOf(last);
+        this.atr = rule.slotOf(atr);
+        this.maEdge[0] = rule.slotOf(maEdge0);
+        this.maEdge[1] = rule.slotOf(maEdge1);
+        this.maEdge[2] = rule.slotOf(maEdge2);
+    }
+
+    /*
+     * Against the quote snapshot as last taken
+     */
+    void evaluate() {
+        rule.evaluate();
+    }
+
+    /*
+     * Edge EMAs and ATR have enough bars
+     */
+    boolean isReady() {
+        return rule.isTrue(ready);
+    }
+
+    boolean isOpenLong() {
+        return rule.isTrue(openLong);
+    }
+
+    boolean isOpenShort() {
+        return rule.isTrue(openShort);
+    }
+
+    double getLastPrice() {
+        return rule.get(lastPrice);
+    }
+
+    double getAtr() {
+        return rule.get(atr);
+    }
+
+    // offset 0 to 2
+    double getMaEdge(int offset) {
+        return rule.get(maEdge[offset]);
+    }
+}
@@ -27,12 +27,11 @@ import jo.tech.StopTrail;
 import jo.util.AsyncExec;
 import jo.util.NullUtils;
 import jo.util.Orders;
-import jo.util.SyncSignal;
+import jo.util.Subscription;
 
 public class MovingAverageHLBot extends BaseBot {
     private boolean whatIf = false;
-    private SyncSignal signal;
-    private SyncSignal priceSignal;
+    private Subscription subscription;
     private Bars maBars;
 
     private EMA maH0;
@@ -80,8 +79,7 @@ public class MovingAverageHLBot extends BaseBot {
         this.ib = ctx.getIb();
 
         this.md = ctx.initMarketData(contract);
-        this.priceSignal = md.getSignal();
-        this.signal = priceSignal;
+        this.subscription = new Subscription(md.getQuoteSequencer(), md.getTradeSequencer(), md.getBarSequencer(BarSize._5_secs));
 
         this.maBars = md.getBars(BarSize._1_min);
         this.realitimeBars = md.getBars(BarSize._5_secs);
@@ -336,7 +334,7 @@ public class MovingAverageHLBot extends BaseBot {
 
     public void run() {
         try {
-            while (signal.waitForSignal()) {
+            while (subscription.await()) {
                 if (Thread.interrupted()) {
                     log.info("Thread Interrupted EXIT");
                     return;
@@ -19,9 +19,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ib.client.Types.BarSize;
 
-import gnu.trove.list.TDoubleList;
-import gnu.trove.list.TLongList;
 import jo.model.Bar;
+import jo.model.BarCursor;
 import jo.model.BarType;
 import jo.model.Bars;
 import jo.model.MarketData;
@@ -30,7 +29,7 @@ import jo.recording.event.EventTypeRegistry;
 import jo.recording.event.MarketDepthEvent;
 import jo.recording.event.RealTimeBarEvent;
 import jo.recording.event.TickSizeEvent;
-import jo.tech.EMA;
+import jo.tech.Batch;
 import jo.util.Formats;
 
 public class HtmlChartApp {
@@ -39,6 +38,7 @@ public class HtmlChartApp {
     public static void main(String[] args) {
         List<AbstractEvent> events = loadBars();
         MarketData md = new MarketData();
+        md.initBars(BarSize._1_min);
 
         for (AbstractEvent event : events) {
             RealTimeBarEvent barEvent = (RealTimeBarEvent) event;
@@ -49,22 +49,21 @@ public class HtmlChartApp {
         Bars oneMinBars = md.getBars(BarSize._1_min);
         int size = oneMinBars.getSize();
 
-        TLongList time = oneMinBars.getTime();
-        TDoubleList low = oneMinBars.getLow();
-        TDoubleList open = oneMinBars.getOpen();
-        TDoubleList close = oneMinBars.getClose();
-        TDoubleList high = oneMinBars.getHigh();
+        BarCursor bar = oneMinBars.cursor();
+        double[] ema = Batch.ema(oneMinBars, BarType.CLOSE, 18);
+        int first = oneMinBars.getFirstIndex();
 
-        for (int i = 0; i < size; i++) {
-            EMA ema = new EMA(oneMinBars, BarType.CLOSE, 18, size - i);
+        for (int i = first; i < size; i++) {
+            bar.at(i);
+            double maValue = i > first ? ema[i - 1 - first] : Double.NaN;
 
             String s = String.format("['%s',  %.2f, %.2f, %.2f, %.2f,  %s]",
-                    TIME_FMT.format(new Date(time.get(i) * 1000)),
-                    low.get(i),
-                    open.get(i),
-                    close.get(i),
-                    high.get(i),                    
-                    fmt(ema.get())                    
+                    TIME_FMT.format(new Date(bar.getTime() * 1000)),
+                    bar.getLow(),
+                    bar.getOpen(),
+                    bar.getClose(),
+                    bar.getHigh(),                    
+                    Double.isNaN(maValue) ? null : fmt(maValue)                    
 
             );
             System.out.print(s);
@@ -1,21 +1,191 @@
 package jo.collection;
 
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Function;
 
 import gnu.trove.list.array.TDoubleArrayList;
 
+/*
+ * TDoubleArrayList with access to the backing array.
+ *
+ * A bounded list keeps only the last "window" values. Indexes stay absolute: size() is the total number of
+ * values ever added and get(i) works for i in [getBase(), size()). Storage is 2 * window and when it fills up
+ * the last window values are moved to the front, so the retained values always sit in one contiguous array
+ * (TA-Lib needs that) and the memory never grows. Bulk Trove operations (sort, forEach, iterator...) only
+ * see the retained values.
+ *
+ * A list guarded by a StampedLock is written by a single writer holding the write lock, readers of get(),
+ * size(), toArray() and executeFunction() never block: they read optimistically and retry if a write
+ * happened meanwhile, so they never see a value from a half done add or compaction.
+ */
 public class TDoubleNakedArrayList extends TDoubleArrayList {
+    private static final int INITIAL_CAPACITY = 10;
+    private final int window;
+    private final StampedLock lock;
+    private int base = 0;
 
     public TDoubleNakedArrayList() {
         super();
+        this.window = 0;
+        this.lock = null;
     }
 
     public TDoubleNakedArrayList(int capacity) {
         super(capacity);
+        this.window = 0;
+        this.lock = null;
     }
 
+    private TDoubleNakedArrayList(int capacity, int window, StampedLock lock) {
+        super(capacity);
+        this.window = window;
+        this.lock = lock;
+    }
+
+    public static TDoubleNakedArrayList bounded(int window) {
+        return bounded(window, null);
+    }
+
+    public static TDoubleNakedArrayList bounded(int window, StampedLock lock) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        return new TDoubleNakedArrayList(window * 2, window, lock);
+    }
+
+    public static TDoubleNakedArrayList guarded(StampedLock lock) {
+        return new TDoubleNakedArrayList(INITIAL_CAPACITY, 0, lock);
+    }
+
+    @Override
+    public boolean add(double val) {
+        if (window > 0 && _pos == _data.length) {
+            compact();
+        }
+        return super.add(val);
+    }
+
+    private void compact() {
+        int evicted = _pos - window;
+        System.arraycopy(_data, evicted, _data, 0, window);
+        _pos = window;
+        base += evicted;
+    }
+
+    @Override
+    public int size() {
+        if (lock == null) {
+            return base + _pos;
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int size = base + _pos;
+            if (lock.validate(stamp)) {
+                return size;
+            }
+        }
+    }
+
+    @Override
+    public double get(int offset) {
+        if (lock == null) {
+            return super.get(toPhysical(offset));
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            double val;
+            try {
+                val = super.get(toPhysical(offset));
+            } catch (IndexOutOfBoundsException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return val;
+            }
+        }
+    }
+
+    @Override
+    public double set(int offset, double val) {
+        return super.set(toPhysical(offset), val);
+    }
+
+    /*
+     * Retained values only, first element is getBase()
+     */
+    @Override
+    public double[] toArray() {
+        return executeFunction((data, base) -> super.toArray(0, _pos));
+    }
+
+    @Override
+    public double[] toArray(int offset, int len) {
+        return executeFunction((data, base) -> super.toArray(toPhysical(offset), len));
+    }
+
+    private int toPhysical(int offset) {
+        if (offset < base) {
+            throw new IndexOutOfBoundsException("Index " + offset + " was evicted, first retained index is " + base);
+        }
+        return offset - base;
+    }
+
+    /*
+     * Index of the first retained value, always 0 for unbounded lists
+     */
+    public int getBase() {
+        return base;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public boolean isBounded() {
+        return window > 0;
+    }
+
+    /*
+     * Raw array, index 0 is getBase(). Use executeFunction(WindowFunction) for bounded or guarded lists.
+     */
     public <R> R executeFunction(Function<double[], R> fn) {
         double[] data = _data;
         return fn.apply(data);
     }
+
+    /*
+     * For guarded lists fn may be called more than once, it must not have side effects other than its result.
+     */
+    public <R> R executeFunction(WindowFunction<R> fn) {
+        if (lock == null) {
+            return fn.apply(_data, base);
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            R result;
+            try {
+                result = fn.apply(_data, base);
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface WindowFunction<R> {
+        // data[i - base] is the value at index i
+        R apply(double[] data, int base);
+    }
 }
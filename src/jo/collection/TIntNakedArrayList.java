@@ -0,0 +1,182 @@
+package jo.collection;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/*
+ * TIntArrayList with access to the backing array, see TDoubleNakedArrayList for the bounded and guarded modes.
+ */
+public class TIntNakedArrayList extends TIntArrayList {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 10;
+    private final int window;
+    private final StampedLock lock;
+    private int base = 0;
+
+    public TIntNakedArrayList() {
+        super();
+        this.window = 0;
+        this.lock = null;
+    }
+
+    public TIntNakedArrayList(int capacity) {
+        super(capacity);
+        this.window = 0;
+        this.lock = null;
+    }
+
+    private TIntNakedArrayList(int capacity, int window, StampedLock lock) {
+        super(capacity);
+        this.window = window;
+        this.lock = lock;
+    }
+
+    public static TIntNakedArrayList bounded(int window) {
+        return bounded(window, null);
+    }
+
+    public static TIntNakedArrayList bounded(int window, StampedLock lock) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        return new TIntNakedArrayList(window * 2, window, lock);
+    }
+
+    public static TIntNakedArrayList guarded(StampedLock lock) {
+        return new TIntNakedArrayList(INITIAL_CAPACITY, 0, lock);
+    }
+
+    @Override
+    public boolean add(int val) {
+        if (window > 0 && _pos == _data.length) {
+            compact();
+        }
+        return super.add(val);
+    }
+
+    private void compact() {
+        int evicted = _pos - window;
+        System.arraycopy(_data, evicted, _data, 0, window);
+        _pos = window;
+        base += evicted;
+    }
+
+    @Override
+    public int size() {
+        if (lock == null) {
+            return base + _pos;
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int size = base + _pos;
+            if (lock.validate(stamp)) {
+                return size;
+            }
+        }
+    }
+
+    @Override
+    public int get(int offset) {
+        if (lock == null) {
+            return super.get(toPhysical(offset));
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int val;
+            try {
+                val = super.get(toPhysical(offset));
+            } catch (IndexOutOfBoundsException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return val;
+            }
+        }
+    }
+
+    @Override
+    public int set(int offset, int val) {
+        return super.set(toPhysical(offset), val);
+    }
+
+    /*
+     * Retained values only, first element is getBase()
+     */
+    @Override
+    public int[] toArray() {
+        return executeFunction((data, base) -> super.toArray(0, _pos));
+    }
+
+    @Override
+    public int[] toArray(int offset, int len) {
+        return executeFunction((data, base) -> super.toArray(toPhysical(offset), len));
+    }
+
+    private int toPhysical(int offset) {
+        if (offset < base) {
+            throw new IndexOutOfBoundsException("Index " + offset + " was evicted, first retained index is " + base);
+        }
+        return offset - base;
+    }
+
+    /*
+     * Index of the first retained value, always 0 for unbounded lists
+     */
+    public int getBase() {
+        return base;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public boolean isBounded() {
+        return window > 0;
+    }
+
+    /*
+     * Raw array, index 0 is getBase(). Use executeFunction(WindowFunction) for bounded or guarded lists.
+     */
+    public <R> R executeFunction(Function<int[], R> fn) {
+        int[] data = _data;
+        return fn.apply(data);
+    }
+
+    /*
+     * For guarded lists fn may be called more than once, it must not have side effects other than its result.
+     */
+    public <R> R executeFunction(WindowFunction<R> fn) {
+        if (lock == null) {
+            return fn.apply(_data, base);
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            R result;
+            try {
+                result = fn.apply(_data, base);
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface WindowFunction<R> {
+        // data[i - base] is the value at index i
+        R apply(int[] data, int base);
+    }
+}
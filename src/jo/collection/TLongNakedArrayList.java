@@ -0,0 +1,182 @@
+package jo.collection;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+import gnu.trove.list.array.TLongArrayList;
+
+/*
+ * TLongArrayList with access to the backing array, see TDoubleNakedArrayList for the bounded and guarded modes.
+ */
+public class TLongNakedArrayList extends TLongArrayList {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 10;
+    private final int window;
+    private final StampedLock lock;
+    private int base = 0;
+
+    public TLongNakedArrayList() {
+        super();
+        this.window = 0;
+        this.lock = null;
+    }
+
+    public TLongNakedArrayList(int capacity) {
+        super(capacity);
+        this.window = 0;
+        this.lock = null;
+    }
+
+    private TLongNakedArrayList(int capacity, int window, StampedLock lock) {
+        super(capacity);
+        this.window = window;
+        this.lock = lock;
+    }
+
+    public static TLongNakedArrayList bounded(int window) {
+        return bounded(window, null);
+    }
+
+    public static TLongNakedArrayList bounded(int window, StampedLock lock) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        return new TLongNakedArrayList(window * 2, window, lock);
+    }
+
+    public static TLongNakedArrayList guarded(StampedLock lock) {
+        return new TLongNakedArrayList(INITIAL_CAPACITY, 0, lock);
+    }
+
+    @Override
+    public boolean add(long val) {
+        if (window > 0 && _pos == _data.length) {
+            compact();
+        }
+        return super.add(val);
+    }
+
+    private void compact() {
+        int evicted = _pos - window;
+        System.arraycopy(_data, evicted, _data, 0, window);
+        _pos = window;
+        base += evicted;
+    }
+
+    @Override
+    public int size() {
+        if (lock == null) {
+            return base + _pos;
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int size = base + _pos;
+            if (lock.validate(stamp)) {
+                return size;
+            }
+        }
+    }
+
+    @Override
+    public long get(int offset) {
+        if (lock == null) {
+            return super.get(toPhysical(offset));
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            long val;
+            try {
+                val = super.get(toPhysical(offset));
+            } catch (IndexOutOfBoundsException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return val;
+            }
+        }
+    }
+
+    @Override
+    public long set(int offset, long val) {
+        return super.set(toPhysical(offset), val);
+    }
+
+    /*
+     * Retained values only, first element is getBase()
+     */
+    @Override
+    public long[] toArray() {
+        return executeFunction((data, base) -> super.toArray(0, _pos));
+    }
+
+    @Override
+    public long[] toArray(int offset, int len) {
+        return executeFunction((data, base) -> super.toArray(toPhysical(offset), len));
+    }
+
+    private int toPhysical(int offset) {
+        if (offset < base) {
+            throw new IndexOutOfBoundsException("Index " + offset + " was evicted, first retained index is " + base);
+        }
+        return offset - base;
+    }
+
+    /*
+     * Index of the first retained value, always 0 for unbounded lists
+     */
+    public int getBase() {
+        return base;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public boolean isBounded() {
+        return window > 0;
+    }
+
+    /*
+     * Raw array, index 0 is getBase(). Use executeFunction(WindowFunction) for bounded or guarded lists.
+     */
+    public <R> R executeFunction(Function<long[], R> fn) {
+        long[] data = _data;
+        return fn.apply(data);
+    }
+
+    /*
+     * For guarded lists fn may be called more than once, it must not have side effects other than its result.
+     */
+    public <R> R executeFunction(WindowFunction<R> fn) {
+        if (lock == null) {
+            return fn.apply(_data, base);
+        }
+
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            R result;
+            try {
+                result = fn.apply(_data, base);
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface WindowFunction<R> {
+        // data[i - base] is the value at index i
+        R apply(long[] data, int base);
+    }
+}
@@ -97,6 +97,7 @@ import jo.handler.ITopMktDataHandler;
 import jo.handler.ITradeReportHandler;
 import jo.handler.OrderHandlerAdapter;
 import jo.model.Bar;
+import jo.model.OrderBook;
 import jo.model.OrderStatusInput;
 import jo.util.AdvisorUtil;
 import jo.util.ConcurrentHashSet;
@@ -877,6 +878,13 @@ public class IBService implements IBroker {
                 liveHandler.handle(id, errorCode, errorMsg);
             }
 
+            if (errorCode == OrderBook.RESET_ERROR_CODE) {
+                IDeepMktDataHandler hand = IBService.this.deepMktDataMap.get(id);
+                if (hand != null) {
+                    hand.resetMktDepth();
+                }
+            }
+
             // "no sec def found" response?
             if (errorCode == 200) {
                 IInternalContractDetailsHandler hand = IBService.this.contractDetailsMap.remove(id);
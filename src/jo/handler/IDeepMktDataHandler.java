@@ -6,4 +6,8 @@ import com.ib.client.Types.DeepType;
 // ---------------------------------------- Deep Market Data handling ----------------------------------------
 public interface IDeepMktDataHandler {
     void updateMktDepth(int position, String marketMaker, DeepType operation, DeepSide side, double price, int size);
+
+    // IB reset the depth data, rows received so far are obsolete
+    default void resetMktDepth() {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package jo.model;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Flyweight over one bar of a Bars. at(i) copies bar i into the cursor, so scanning bars doesn't allocate a Bar
+ * per step. Like Bars.get(i) all values of a bar come from the same version of the bars, but the cursor keeps
+ * them after the bar is evicted from a bounded Bars.
+ *
+ * Mutable and not thread safe, reuse one cursor per reader thread.
+ */
+public class BarCursor {
+    private final Bars bars;
+    private int index = -1;
+    private long time;
+    private double high;
+    private double low;
+    private double open;
+    private double close;
+    private double wap;
+    private long volume;
+    private int count;
+
+    BarCursor(Bars bars) {
+        this.bars = bars;
+    }
+
+    public BarCursor at(int i) {
+        index = bars.load(i, false, this);
+        return this;
+    }
+
+    public BarCursor fromEnd(int offsetFromEnd) {
+        Preconditions.checkArgument(bars.getSize() > 0, "No data yet");
+        index = bars.load(offsetFromEnd, true, this);
+        return this;
+    }
+
+    /*
+     * Calls visitor with this cursor moved to each bar of [from, to). The visitor must not keep the cursor.
+     */
+    public void forEach(int from, int to, BarVisitor visitor) {
+        for (int i = from; i < to; i++) {
+            visitor.visit(at(i));
+        }
+    }
+
+    public Bar copyTo(Bar bar) {
+        bar.setTime(time);
+        bar.setHigh(high);
+        bar.setLow(low);
+        bar.setOpen(open);
+        bar.setClose(close);
+        bar.setWap(wap);
+        bar.setVolume(volume);
+        bar.setCount(count);
+        return bar;
+    }
+
+    public Bar toBar() {
+        return copyTo(new Bar());
+    }
+
+    void set(long time, double high, double low, double open, double close, double wap, long volume, int count) {
+        this.time = time;
+        this.high = high;
+        this.low = low;
+        this.open = open;
+        this.close = close;
+        this.wap = wap;
+        this.volume = volume;
+        this.count = count;
+    }
+
+    public double get(BarType type) {
+        switch (type) {
+        case OPEN:
+            return open;
+
+        case LOW:
+            return low;
+
+        case HIGH:
+            return high;
+
+        case CLOSE:
+            return close;
+
+        case WAP:
+            return wap;
+        }
+
+        throw new IllegalArgumentException("Unsupported BarType " + type);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public double getWap() {
+        return wap;
+    }
+
+    public long getVolume() {
+        return volume;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,6 @@
+package jo.model;
+
+@FunctionalInterface
+public interface BarVisitor {
+    void visit(BarCursor bar);
+}
@@ -1,26 +1,71 @@
 package jo.model;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 import com.google.common.base.Preconditions;
 
 import gnu.trove.list.TDoubleList;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.TLongList;
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.list.array.TLongArrayList;
 import jo.collection.TDoubleNakedArrayList;
-import jo.util.SyncSignal;
+import jo.collection.TIntNakedArrayList;
+import jo.collection.TLongNakedArrayList;
+import jo.util.Sequencer;
 
+/*
+ * Columnar bar storage. Bars index from 0 (the first bar ever added) to getSize() - 1.
+ *
+ * Bars created with a capacity work as a ring buffer: only the last "capacity" bars (at least) are retained,
+ * older ones are evicted and getFirstIndex() moves forward, memory stays flat no matter how many bars are added.
+ *
+ * Single writer, many readers: addBar() must be called from one thread only (IB reader thread), it publishes
+ * each bar under a sequence lock. Readers never block and never take a monitor, they read optimistically and
+ * retry when a bar was added meanwhile, so they never see a torn bar or a stale array after a resize or
+ * compaction. Use read() to get several values from the same version of the bars.
+ */
 public class Bars {
-    private int size = 0;
-    private final SyncSignal signal = new SyncSignal();
-    private final TLongList time = new TLongArrayList();
-    private final TDoubleNakedArrayList high = new TDoubleNakedArrayList();
-    private final TDoubleNakedArrayList low = new TDoubleNakedArrayList();
-    private final TDoubleNakedArrayList open = new TDoubleNakedArrayList();
-    private final TDoubleNakedArrayList close = new TDoubleNakedArrayList();
-    private final TDoubleNakedArrayList wap = new TDoubleNakedArrayList();
-    private final TLongList volume = new TLongArrayList();
-    private final TIntList count = new TIntArrayList();
+    private volatile int size = 0;
+    private final int capacity;
+    private final StampedLock lock = new StampedLock();
+    private final Sequencer sequencer = new Sequencer();
+    private final ConcurrentMap<Class<?>, Object> attachments = new ConcurrentHashMap<>();
+    private final TLongNakedArrayList time;
+    private final TDoubleNakedArrayList high;
+    private final TDoubleNakedArrayList low;
+    private final TDoubleNakedArrayList open;
+    private final TDoubleNakedArrayList close;
+    private final TDoubleNakedArrayList wap;
+    private final TLongNakedArrayList volume;
+    private final TIntNakedArrayList count;
+
+    public Bars() {
+        this.capacity = 0;
+        this.time = TLongNakedArrayList.guarded(lock);
+        this.high = TDoubleNakedArrayList.guarded(lock);
+        this.low = TDoubleNakedArrayList.guarded(lock);
+        this.open = TDoubleNakedArrayList.guarded(lock);
+        this.close = TDoubleNakedArrayList.guarded(lock);
+        this.wap = TDoubleNakedArrayList.guarded(lock);
+        this.volume = TLongNakedArrayList.guarded(lock);
+        this.count = TIntNakedArrayList.guarded(lock);
+    }
+
+    public Bars(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive: %s", capacity);
+        this.capacity = capacity;
+        this.time = TLongNakedArrayList.bounded(capacity, lock);
+        this.high = TDoubleNakedArrayList.bounded(capacity, lock);
+        this.low = TDoubleNakedArrayList.bounded(capacity, lock);
+        this.open = TDoubleNakedArrayList.bounded(capacity, lock);
+        this.close = TDoubleNakedArrayList.bounded(capacity, lock);
+        this.wap = TDoubleNakedArrayList.bounded(capacity, lock);
+        this.volume = TLongNakedArrayList.bounded(capacity, lock);
+        this.count = TIntNakedArrayList.bounded(capacity, lock);
+    }
 
     public Bar getLastBar() {
         Preconditions.checkArgument(size > 0, "No data yet");
@@ -28,45 +73,126 @@ public class Bars {
     }
 
     /*
-     * Get Nth bar from the beginning, typical List behavior.
+     * Get Nth bar from the beginning, typical List behavior. Fails for bars already evicted from a bounded Bars.
      */
     public Bar get(int i) {
-        Bar bar = new Bar();
-        bar.setTime(time.get(i));
-        bar.setHigh(high.get(i));
-        bar.setLow(low.get(i));
-        bar.setOpen(open.get(i));
-        bar.setClose(close.get(i));
-        bar.setWap(wap.get(i));
-        bar.setVolume(volume.get(i));
-        bar.setCount(count.get(i));
-
-        return bar;
+        return read(() -> {
+            Bar bar = new Bar();
+            bar.setTime(time.get(i));
+            bar.setHigh(high.get(i));
+            bar.setLow(low.get(i));
+            bar.setOpen(open.get(i));
+            bar.setClose(close.get(i));
+            bar.setWap(wap.get(i));
+            bar.setVolume(volume.get(i));
+            bar.setCount(count.get(i));
+            return bar;
+        });
     }
 
     public Bar getBarFromEnd(int offsetFromEnd) {
-        Preconditions.checkArgument(size > 0, "No data yet");
+        return read(() -> {
+            int size = this.size;
+            Preconditions.checkArgument(size > 0, "No data yet");
 
-        int offset = size - offsetFromEnd - 1;
-        Preconditions.checkArgument(offset > -1, "Index out of bound: lastPos %s, offsetFromEnd %s", size, offsetFromEnd);
-        return get(offset);
+            int offset = size - offsetFromEnd - 1;
+            Preconditions.checkArgument(offset > -1, "Index out of bound: lastPos %s, offsetFromEnd %s", size, offsetFromEnd);
+            return get(offset);
+        });
     }
 
-    public synchronized void addBar(Bar bar) {
+    /*
+     * Single writer only.
+     */
+    public void addBar(Bar bar) {
         // log.info("AddBar: {}", bar);
 
-        time.add(bar.getTime());
-        high.add(bar.getHigh());
-        low.add(bar.getLow());
-        open.add(bar.getOpen());
-        close.add(bar.getClose());
-        wap.add(bar.getWap());
-        volume.add(bar.getVolume());
-        count.add(bar.getCount());
+        long stamp = lock.writeLock();
+        try {
+            time.add(bar.getTime());
+            high.add(bar.getHigh());
+            low.add(bar.getLow());
+            open.add(bar.getOpen());
+            close.add(bar.getClose());
+            wap.add(bar.getWap());
+            volume.add(bar.getVolume());
+            count.add(bar.getCount());
 
-        size++;
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
 
-        signal.signalAll();
+        sequencer.publish();
+    }
+
+    /*
+     * Runs reader against a consistent version of the bars, without blocking the writer. The reader is re-run if
+     * a bar was added meanwhile, so it must not have side effects other than its result.
+     */
+    public <T> T read(Supplier<T> reader) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            T result;
+            try {
+                result = reader.get();
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+    }
+
+    /*
+     * Reusable single bar view for reading bars in a loop without allocating a Bar per step, one per thread.
+     */
+    public BarCursor cursor() {
+        return new BarCursor(this);
+    }
+
+    /*
+     * Visits bars [from, to) through one cursor, see BarCursor.forEach()
+     */
+    public void forEach(int from, int to, BarVisitor visitor) {
+        cursor().forEach(from, to, visitor);
+    }
+
+    /*
+     * Copies bar i (or the bar i from the end) into cursor, all values from the same version of the bars.
+     * Returns the index of the bar.
+     */
+    int load(int i, boolean fromEnd, BarCursor cursor) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int first = time.getBase();
+            int size = this.size;
+            int index = fromEnd ? size - 1 - i : i;
+            boolean retained = index >= first && index < size;
+            if (retained) {
+                int p = index - first;
+                try {
+                    cursor.set(time.getQuick(p), high.getQuick(p), low.getQuick(p), open.getQuick(p),
+                            close.getQuick(p), wap.getQuick(p), volume.getQuick(p), count.getQuick(p));
+                } catch (ArrayIndexOutOfBoundsException e) {
+                    // array swapped by a resize meanwhile
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                    continue;
+                }
+            }
+            if (lock.validate(stamp)) {
+                if (!retained) {
+                    throw new IndexOutOfBoundsException("Index " + index + " not in [" + first + ", " + size + ")");
+                }
+                return index;
+            }
+        }
     }
 
     public TLongList getTime() {
@@ -105,8 +231,37 @@ public class Bars {
         return size;
     }
 
-    public SyncSignal getSignal() {
-        return signal;
+    /*
+     * Index of the oldest bar still retained, always 0 for unbounded bars
+     */
+    public int getFirstIndex() {
+        return time.getBase();
+    }
+
+    /*
+     * 0 for unbounded bars
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isBounded() {
+        return capacity > 0;
+    }
+
+    /*
+     * Published on every bar added, i.e. every bar close
+     */
+    public Sequencer getSequencer() {
+        return sequencer;
+    }
+
+    /*
+     * Object of the type created once from these bars by factory and kept with them, e.g. their indicators
+     * (jo.tech.Indicators.of())
+     */
+    public <T> T getAttachment(Class<T> type, Function<Bars, ? extends T> factory) {
+        return type.cast(attachments.computeIfAbsent(type, t -> factory.apply(this)));
     }
 
     public TDoubleNakedArrayList getDoubleSeries(BarType type) {
@@ -130,14 +285,44 @@ public class Bars {
         throw new IllegalArgumentException("Unsupported BarType " + type);
     }
 
+    public double get(BarType type, int i) {
+        return getDoubleSeries(type).get(i);
+    }
+
+    public long getTime(int i) {
+        return time.get(i);
+    }
+
+    public long getVolume(int i) {
+        return volume.get(i);
+    }
+
+    public int getCount(int i) {
+        return count.get(i);
+    }
+
     public double getLastBar(BarType type) {
         return getLastBar(type, 0);
     }
 
     public double getLastBar(BarType type, int shift) {
         TDoubleList series = getDoubleSeries(type);
-        int offset = size - 1 - shift;
-        return series.get(offset);
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            double val;
+            try {
+                int offset = size - 1 - shift;
+                val = series.get(offset);
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (lock.validate(stamp)) {
+                return val;
+            }
+        }
     }
 
 }
@@ -1,12 +1,11 @@
 package jo.model;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-
-import org.apache.commons.collections4.queue.CircularFifoQueue;
-import org.apache.commons.lang3.StringUtils;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 import com.ib.client.Contract;
 import com.ib.client.TickType;
@@ -20,11 +19,16 @@ import jo.handler.IRealTimeBarHandler;
 import jo.handler.ITopMktDataHandler;
 import jo.recording.MarketDataRecorder;
 import jo.util.BarSizeUtils;
-import jo.util.SyncSignal;
+import jo.util.Sequencer;
 
 public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDeepMktDataHandler {
+    // rows requested by depth subscriptions (MarketRecorder)
+    private static final int DEPTH_ROWS = 40;
+
     private Map<BarSize, Bars> barsMap = new ConcurrentHashMap<>();
-    private CircularFifoQueue<MarketDataTrade> trades = new CircularFifoQueue<>(4 * 4096);
+    private final TradeTape tradeTape = new TradeTape(4 * 4096);
+    private final RtVolumeParser rtVolumeParser = new RtVolumeParser();
+    private volatile TradeBarBuilder[] tradeBarBuilders = {};
     private Contract contract;
     private boolean isRecording;
     private MarketDataRecorder recorder;
@@ -41,19 +45,19 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
     private volatile double high52Price;
     private volatile double low52Price;
 
-    private volatile double askPrice;
-    private volatile int askSize;
-    private volatile double bidPrice;
-    private volatile int bidSize;
-    private volatile double lastPrice;
-    private volatile int lastSize;
+    // top of book, changed by the single writer under quoteLock, see getQuote()
+    private final Quote quote = new Quote();
+    private final StampedLock quoteLock = new StampedLock();
     private volatile int averageVolume;
     private volatile int todayVolume;
 
-    private final SyncSignal updateSignal = new SyncSignal();
-    private List<SyncSignal> barSignals = new ArrayList<>();
+    // bid, ask, last price or size changed
+    private final Sequencer quoteSequencer = new Sequencer();
+    private final Sequencer tradeSequencer = new Sequencer();
+    private final Sequencer depthSequencer = new Sequencer();
+    private final OrderBook orderBook = new OrderBook(DEPTH_ROWS);
 
-    private final List<RealtimeBarAggregator> realtimeBarAggregators = new ArrayList<>();
+    private final Map<BarSize, RealtimeBarAggregator> realtimeBarAggregators = new ConcurrentHashMap<>();
 
     public MarketData() {
         this(null);
@@ -62,15 +66,8 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
     public MarketData(Contract contract) {
         this.contract = contract;
 
-        Bars realtimeBars = initBars(BarSize._5_secs);
-
-        for (int i = BarSize._10_secs.ordinal(); i < BarSize._1_day.ordinal(); i++) {
-            BarSize barSize = BarSize.values()[i];
-            initBars(barSize);
-
-            RealtimeBarAggregator agg = new RealtimeBarAggregator(this, realtimeBars, barSize);
-            realtimeBarAggregators.add(agg);
-        }
+        // other bar sizes are created on demand by initBars/getBars
+        initBars(BarSizeUtils.REALTIME_BAR_SIZE);
     }
 
     public void startRecording() {
@@ -79,18 +76,42 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
     }
 
     public void addTrade(MarketDataTrade trade) {
-        synchronized (trades) {
-            trades.add(trade);
+        tradeTape.add(trade.getPrice(), trade.getSize(), trade.getTime(), trade.getDayTotalVolume(), trade.getIntradayVwap());
+        tradeAdded();
+    }
+
+    private void tradeAdded() {
+        if (tradeBarBuilders.length > 0) {
+            updateTradeBars();
         }
-        updateSignal.signalAll();
+        tradeSequencer.publish();
     }
 
-    public MarketDataTrade getLastTrade() {
-        synchronized (trades) {
-            return trades.get(trades.size() - 1);
+    private synchronized void updateTradeBars() {
+        for (TradeBarBuilder builder : tradeBarBuilders) {
+            builder.update(tradeTape);
         }
     }
 
+    /*
+     * Bars built from trades by builder (tick, volume, range, 1 sec bars...), backfilled from the trades still
+     * on the tape. Subscribe to their bar closes with getBars().getSequencer().
+     */
+    public synchronized Bars addTradeBars(TradeBarBuilder builder) {
+        builder.update(tradeTape);
+        TradeBarBuilder[] builders = Arrays.copyOf(tradeBarBuilders, tradeBarBuilders.length + 1);
+        builders[tradeBarBuilders.length] = builder;
+        tradeBarBuilders = builders;
+        return builder.getBars();
+    }
+
+    /*
+     * Allocates, use getTradeTape().cursor() on hot paths
+     */
+    public MarketDataTrade getLastTrade() {
+        return tradeTape.cursor().fromEnd(0).toTrade();
+    }
+
     public double getTodayOpenPrice() {
         return todayOpenPrice;
     }
@@ -107,16 +128,64 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         return todayHighPrice;
     }
 
+    /*
+     * Creates the bars on first request, see initBars
+     */
     public Bars getBars(BarSize barSize) {
-        return barsMap.get(barSize);
+        Bars bars = barsMap.get(barSize);
+        if (bars != null) {
+            return bars;
+        }
+        return initBars(barSize);
+    }
+
+    public Bars initBars(BarSize barSize) {
+        return initBars(barSize, BarSizeUtils.getDefaultCapacity(barSize));
     }
 
-    public synchronized Bars initBars(BarSize barSize) {
-        return barsMap.computeIfAbsent(barSize, (k) -> {
-            Bars bars = new Bars();
-            barSignals.add(bars.getSignal());
+    /*
+     * Bars are bounded, only the last capacity bars are kept. Capacity is ignored if bars already exist.
+     *
+     * Bar sizes between realtime bars and 1 day are aggregated from realtime bars, only the ones requested so far.
+     * A bar size requested mid-session is backfilled from the realtime bars still retained.
+     */
+    public synchronized Bars initBars(BarSize barSize, int capacity) {
+        Bars bars = barsMap.get(barSize);
+        if (bars != null) {
             return bars;
-        });
+        }
+
+        bars = new Bars(capacity);
+        barsMap.put(barSize, bars);
+
+        if (isAggregated(barSize)) {
+            RealtimeBarAggregator agg = new RealtimeBarAggregator(this, barSize);
+
+            // addBar is synchronized too, no realtime bar can slip in while backfilling
+            Bars realtimeBars = barsMap.get(BarSizeUtils.REALTIME_BAR_SIZE);
+            if (realtimeBars != null) {
+                // update() doesn't keep the bar, one is enough
+                Bar srcBar = new Bar();
+                realtimeBars.forEach(realtimeBars.getFirstIndex(), realtimeBars.getSize(), b -> agg.update(b.copyTo(srcBar)));
+            }
+
+            realtimeBarAggregators.put(barSize, agg);
+        }
+
+        return bars;
+    }
+
+    private static boolean isAggregated(BarSize barSize) {
+        return barSize.ordinal() > BarSizeUtils.REALTIME_BAR_SIZE.ordinal() && barSize.ordinal() < BarSize._1_day.ordinal();
+    }
+
+    /*
+     * Copies the not yet completed bar of barSize into bar, returns false if there is none (or barSize is not
+     * aggregated from realtime bars).
+     */
+    public boolean getFormingBar(BarSize barSize, Bar bar) {
+        RealtimeBarAggregator agg = realtimeBarAggregators.get(barSize);
+        return agg != null && agg.getFormingBar(bar);
     }
 
     @Override
@@ -133,12 +202,9 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         bars.addBar(bar);
 
         if (barSize == BarSizeUtils.REALTIME_BAR_SIZE) {
-            for (RealtimeBarAggregator agg : realtimeBarAggregators) {
-                agg.update();
+            for (RealtimeBarAggregator agg : realtimeBarAggregators.values()) {
+                agg.update(bar);
             }
-
-            // only update on a realtime bar, other bars will cascade from the realtime bar
-            updateSignal.signalAll();
         }
     }
 
@@ -156,14 +222,10 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
 
         switch (tickType) {
         case ASK:
-            askPrice = price;
-            break;
         case BID:
-            bidPrice = price;
-            break;
         case LAST:
-            lastPrice = price;
             // log.info("Last: {}", price);
+            updateQuote(tickType, price);
             break;
         case HIGH:
             todayHighPrice = price;
@@ -199,8 +261,6 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         default:
             break;
         }
-
-        updateSignal.signalAll();
     }
 
     @Override
@@ -215,13 +275,9 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
 
         switch (tickType) {
         case ASK_SIZE:
-            askSize = size;
-            break;
         case BID_SIZE:
-            bidSize = size;
-            break;
         case LAST_SIZE:
-            lastSize = size;
+            updateQuote(tickType, size);
             break;
         case AVG_VOLUME:
             averageVolume = size;
@@ -232,8 +288,6 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         default:
             break;
         }
-
-        updateSignal.signalAll();
     }
 
     @Override
@@ -246,7 +300,6 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         case RT_TRD_VOLUME:
             // log.info("tickString: {} {}", tickType, value);
             processRTVolume(value);
-            updateSignal.signalAll();
             break;
 
         default:
@@ -264,30 +317,16 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
 
         // Ex: ;0;1519636841808;21;170.83991182;true
 
-        String[] split = StringUtils.splitPreserveAllTokens(value, ';');
-        if (split.length == 6) {
-            String priceStr = split[0];
-            String sizeStr = split[1];
-            String timeStr = split[2];
-            String todayVolumeStr = split[3];
-            String vwapStr = split[4];
-
-            if (!priceStr.isEmpty() && !sizeStr.isEmpty() && !timeStr.isEmpty() && !todayVolumeStr.isEmpty() && !vwapStr.isEmpty()) {
-                double price = Double.parseDouble(priceStr);
-                int size = Integer.parseInt(sizeStr);
-                long time = Long.parseLong(timeStr);
-                int dayTotalVolume = Integer.parseInt(todayVolumeStr);
-                double vwap = Double.parseDouble(vwapStr);
-
-                MarketDataTrade trade = new MarketDataTrade(price, size, time, dayTotalVolume, vwap);
-                // log.info("processRTVolume: {}", ToStringBuilder.reflectionToString(trade));
-                addTrade(trade);
-            }
+        // no trade in volume only updates like the one above
+        RtVolumeParser p = rtVolumeParser;
+        if (p.parse(value)) {
+            tradeTape.add(p.getPrice(), p.getSize(), p.getTime(), p.getDayVolume(), p.getVwap());
+            tradeAdded();
         }
     }
 
-    public CircularFifoQueue<MarketDataTrade> getTrades() {
-        return trades;
+    public TradeTape getTradeTape() {
+        return tradeTape;
     }
 
     public double getHigh13Price() {
@@ -314,28 +353,75 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         return low52Price;
     }
 
+    private void updateQuote(TickType tickType, double value) {
+        long stamp = quoteLock.writeLock();
+        try {
+            quote.update(tickType, value, System.currentTimeMillis());
+        } finally {
+            quoteLock.unlockWrite(stamp);
+        }
+        quoteSequencer.publish();
+    }
+
+    /*
+     * Copies the current quote into snapshot, all values from the same version. Never blocks and doesn't allocate,
+     * retries only if the quote changes while being copied.
+     */
+    public Quote getQuote(Quote snapshot) {
+        while (true) {
+            long stamp = quoteLock.tryOptimisticRead();
+            snapshot.copyFrom(quote);
+            if (quoteLock.validate(stamp)) {
+                return snapshot;
+            }
+        }
+    }
+
+    private double readQuotePrice(ToDoubleFunction<Quote> field) {
+        while (true) {
+            long stamp = quoteLock.tryOptimisticRead();
+            double value = field.applyAsDouble(quote);
+            if (quoteLock.validate(stamp)) {
+                return value;
+            }
+        }
+    }
+
+    private int readQuoteSize(ToIntFunction<Quote> field) {
+        while (true) {
+            long stamp = quoteLock.tryOptimisticRead();
+            int value = field.applyAsInt(quote);
+            if (quoteLock.validate(stamp)) {
+                return value;
+            }
+        }
+    }
+
+    /*
+     * Single values below may come from different versions of the quote, use getQuote() to combine them.
+     */
     public double getAskPrice() {
-        return askPrice;
+        return readQuotePrice(Quote::getAskPrice);
     }
 
     public int getAskSize() {
-        return askSize;
+        return readQuoteSize(Quote::getAskSize);
     }
 
     public double getBidPrice() {
-        return bidPrice;
+        return readQuotePrice(Quote::getBidPrice);
     }
 
     public int getBidSize() {
-        return bidSize;
+        return readQuoteSize(Quote::getBidSize);
     }
 
     public double getLastPrice() {
-        return lastPrice;
+        return readQuotePrice(Quote::getLastPrice);
     }
 
     public int getLastSize() {
-        return lastSize;
+        return readQuoteSize(Quote::getLastSize);
     }
 
     public int getAverageVolume() {
@@ -346,8 +432,38 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         return todayVolume;
     }
 
-    public SyncSignal getSignal() {
-        return updateSignal;
+    /*
+     * Bid, ask, last price and size changes. Other ticks (day high/low, volume...) are not notified.
+     */
+    public Sequencer getQuoteSequencer() {
+        return quoteSequencer;
+    }
+
+    /*
+     * Trades from RT volume ticks, see getTradeTape()
+     */
+    public Sequencer getTradeSequencer() {
+        return tradeSequencer;
+    }
+
+    /*
+     * Bar closes of barSize, creates the bars on first request
+     */
+    public Sequencer getBarSequencer(BarSize barSize) {
+        return getBars(barSize).getSequencer();
+    }
+
+    /*
+     * Stops all sequencers, subscriptions to this market data return false from await()
+     */
+    public void shutdown() {
+        quoteSequencer.stop();
+        tradeSequencer.stop();
+        depthSequencer.stop();
+        barsMap.values().forEach(bars -> bars.getSequencer().stop());
+        for (TradeBarBuilder builder : tradeBarBuilders) {
+            builder.getBars().getSequencer().stop();
+        }
     }
 
     public Contract getContract() {
@@ -369,6 +485,25 @@ public class MarketData implements IRealTimeBarHandler, ITopMktDataHandler, IDee
         if (isRecording) {
             recorder.updateMktDepth(position, marketMaker, operation, side, price, size);
         }
-        // TODO Market Depth support
+
+        orderBook.update(position, operation, side, price, size);
+        depthSequencer.publish();
+    }
+
+    @Override
+    public void resetMktDepth() {
+        orderBook.clear();
+        depthSequencer.publish();
+    }
+
+    public OrderBook getOrderBook() {
+        return orderBook;
+    }
+
+    /*
+     * Order book changes, see getOrderBook()
+     */
+    public Sequencer getDepthSequencer() {
+        return depthSequencer;
     }
 }
@@ -0,0 +1,255 @@
+package jo.model;
+
+import java.util.concurrent.locks.StampedLock;
+
+import com.google.common.base.Preconditions;
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+/*
+ * Level 2 book of one symbol, built from IB market depth rows: insert, update or delete the row at a position
+ * of a side, row 0 being the best price.
+ *
+ * Rows are kept in primitive arrays per side. An update is O(1), an insert or delete shifts the rows below it
+ * with one arraycopy of at most maxLevels rows (40 in our subscriptions). Nothing is allocated.
+ *
+ * Single writer (IB reader thread or replay). Readers never block: like Bars they read optimistically under a
+ * sequence lock, so best bid/offer, depth and imbalance always come from one version of the book.
+ */
+public class OrderBook {
+    // "Market depth data has been RESET. Please empty deep book contents before applying any new entries."
+    public static final int RESET_ERROR_CODE = 317;
+
+    private final int maxLevels;
+    private final Levels bids;
+    private final Levels asks;
+    private final StampedLock lock = new StampedLock();
+    private volatile long version;
+
+    public OrderBook(int maxLevels) {
+        Preconditions.checkArgument(maxLevels > 0, "Max levels must be positive: %s", maxLevels);
+        this.maxLevels = maxLevels;
+        this.bids = new Levels(maxLevels);
+        this.asks = new Levels(maxLevels);
+    }
+
+    /*
+     * Single writer only. Rows beyond maxLevels are ignored.
+     */
+    public void update(int position, DeepType operation, DeepSide side, double price, int size) {
+        if (position < 0 || position >= maxLevels) {
+            return;
+        }
+
+        Levels levels = levels(side);
+        long stamp = lock.writeLock();
+        try {
+            switch (operation) {
+            case INSERT:
+                levels.insert(position, price, size);
+                break;
+            case UPDATE:
+                levels.update(position, price, size);
+                break;
+            case DELETE:
+                levels.delete(position);
+                break;
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * Single writer only, on RESET_ERROR_CODE
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            bids.count = 0;
+            asks.count = 0;
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * NaN if there is no bid
+     */
+    public double getBestBidPrice() {
+        return getPrice(DeepSide.BUY, 0);
+    }
+
+    /*
+     * NaN if there is no ask
+     */
+    public double getBestAskPrice() {
+        return getPrice(DeepSide.SELL, 0);
+    }
+
+    public int getBestBidSize() {
+        return getSize(DeepSide.BUY, 0);
+    }
+
+    public int getBestAskSize() {
+        return getSize(DeepSide.SELL, 0);
+    }
+
+    /*
+     * Price of the row at level, NaN if the side has no such level
+     */
+    public double getPrice(DeepSide side, int level) {
+        Levels levels = levels(side);
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            double price = level >= 0 && level < Math.min(levels.count, maxLevels) ? levels.price[level] : Double.NaN;
+            if (lock.validate(stamp)) {
+                return price;
+            }
+        }
+    }
+
+    /*
+     * Size of the row at level, 0 if the side has no such level
+     */
+    public int getSize(DeepSide side, int level) {
+        Levels levels = levels(side);
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int size = level >= 0 && level < Math.min(levels.count, maxLevels) ? levels.size[level] : 0;
+            if (lock.validate(stamp)) {
+                return size;
+            }
+        }
+    }
+
+    public int getLevels(DeepSide side) {
+        Levels levels = levels(side);
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int count = levels.count;
+            if (lock.validate(stamp)) {
+                return count;
+            }
+        }
+    }
+
+    /*
+     * Cumulative size of the best "levels" rows of side
+     */
+    public long getDepth(DeepSide side, int levels) {
+        Levels l = levels(side);
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            long depth = l.depth(levels);
+            if (lock.validate(stamp)) {
+                return depth;
+            }
+        }
+    }
+
+    /*
+     * (bid depth - ask depth) / (bid depth + ask depth) over the best "levels" rows of each side, from -1 (asks
+     * only) to 1 (bids only), 0 for an empty book.
+     */
+    public double getImbalance(int levels) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            long bidDepth = bids.depth(levels);
+            long askDepth = asks.depth(levels);
+            if (lock.validate(stamp)) {
+                long total = bidDepth + askDepth;
+                return total == 0 ? 0 : (double) (bidDepth - askDepth) / total;
+            }
+        }
+    }
+
+    /*
+     * Copies the rows of side into prices and sizes (up to their length), returns the number of rows copied.
+     */
+    public int copy(DeepSide side, double[] prices, int[] sizes) {
+        Levels levels = levels(side);
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            int n = Math.min(Math.min(levels.count, maxLevels), Math.min(prices.length, sizes.length));
+            System.arraycopy(levels.price, 0, prices, 0, n);
+            System.arraycopy(levels.size, 0, sizes, 0, n);
+            if (lock.validate(stamp)) {
+                return n;
+            }
+        }
+    }
+
+    /*
+     * Number of changes applied so far
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getMaxLevels() {
+        return maxLevels;
+    }
+
+    private Levels levels(DeepSide side) {
+        return side == DeepSide.BUY ? bids : asks;
+    }
+
+    private static class Levels {
+        private final double[] price;
+        private final int[] size;
+        private int count;
+
+        Levels(int maxLevels) {
+            this.price = new double[maxLevels];
+            this.size = new int[maxLevels];
+        }
+
+        void insert(int position, double p, int s) {
+            int max = price.length;
+            position = Math.min(position, count);
+            int moved = Math.min(count, max - 1) - position;
+            if (moved > 0) {
+                System.arraycopy(price, position, price, position + 1, moved);
+                System.arraycopy(size, position, size, position + 1, moved);
+            }
+            price[position] = p;
+            size[position] = s;
+            count = Math.min(count + 1, max);
+        }
+
+        void update(int position, double p, int s) {
+            if (position >= count) {
+                // update of a row not inserted, treat it as a new last row
+                insert(position, p, s);
+                return;
+            }
+            price[position] = p;
+            size[position] = s;
+        }
+
+        void delete(int position) {
+            if (position >= count) {
+                return;
+            }
+            int moved = count - position - 1;
+            if (moved > 0) {
+                System.arraycopy(price, position + 1, price, position, moved);
+                System.arraycopy(size, position + 1, size, position, moved);
+            }
+            count--;
+        }
+
+        // may be called on a half written book, bounds are checked against the arrays
+        long depth(int levels) {
+            int n = Math.min(Math.min(levels, count), size.length);
+            long depth = 0;
+            for (int i = 0; i < n; i++) {
+                depth += size[i];
+            }
+            return depth;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package jo.model;
+
+import com.ib.client.TickType;
+
+import jo.util.Formats;
+
+/*
+ * Top of book: bid, ask, last and their sizes, with the version and time of the last change.
+ *
+ * MarketData owns the live quote and publishes every change as a new version. Readers take consistent snapshots
+ * of it with MarketData.getQuote(Quote) into a Quote of their own, reused from read to read. The fields are plain:
+ * the live quote is only read under the MarketData sequence lock, whose validation orders the reads.
+ */
+public class Quote {
+    private long version;
+    private long time;
+    private double bidPrice;
+    private int bidSize;
+    private double askPrice;
+    private int askSize;
+    private double lastPrice;
+    private int lastSize;
+
+    /*
+     * Returns false if tickType is not a top of book tick
+     */
+    boolean update(TickType tickType, double value, long time) {
+        switch (tickType) {
+        case BID:
+            bidPrice = value;
+            break;
+        case ASK:
+            askPrice = value;
+            break;
+        case LAST:
+            lastPrice = value;
+            break;
+        case BID_SIZE:
+            bidSize = (int) value;
+            break;
+        case ASK_SIZE:
+            askSize = (int) value;
+            break;
+        case LAST_SIZE:
+            lastSize = (int) value;
+            break;
+        default:
+            return false;
+        }
+
+        this.time = time;
+        version++;
+        return true;
+    }
+
+    void copyFrom(Quote quote) {
+        version = quote.version;
+        time = quote.time;
+        bidPrice = quote.bidPrice;
+        bidSize = quote.bidSize;
+        askPrice = quote.askPrice;
+        askSize = quote.askSize;
+        lastPrice = quote.lastPrice;
+        lastSize = quote.lastSize;
+    }
+
+    /*
+     * Number of changes so far, 0 for no quote yet
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /*
+     * Epoch millis of the last change
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public double getBidPrice() {
+        return bidPrice;
+    }
+
+    public int getBidSize() {
+        return bidSize;
+    }
+
+    public double getAskPrice() {
+        return askPrice;
+    }
+
+    public int getAskSize() {
+        return askSize;
+    }
+
+    public double getLastPrice() {
+        return lastPrice;
+    }
+
+    public int getLastSize() {
+        return lastSize;
+    }
+
+    public double getSpread() {
+        return askPrice - bidPrice;
+    }
+
+    public double getMidPrice() {
+        return (bidPrice + askPrice) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return "Quote v" + version + ": bid " + bidSize + "@" + Formats.fmt(bidPrice) + ", ask " + askSize + "@" + Formats.fmt(askPrice)
+                + ", last " + lastSize + "@" + Formats.fmt(lastPrice);
+    }
+}
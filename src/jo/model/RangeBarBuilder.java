@@ -0,0 +1,33 @@
+package jo.model;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Bars with a high - low range of "range": a bar is complete when its range reaches it, a trade that would take
+ * it beyond starts the next bar.
+ */
+public class RangeBarBuilder extends TradeBarBuilder {
+    // prices are cents in doubles
+    private static final double PRICE_EPSILON = 1e-9;
+    private final double range;
+
+    public RangeBarBuilder(double range) {
+        this(range, DEFAULT_CAPACITY);
+    }
+
+    public RangeBarBuilder(double range, int capacity) {
+        super(capacity);
+        Preconditions.checkArgument(range > 0, "Range must be positive: %s", range);
+        this.range = range;
+    }
+
+    @Override
+    protected boolean startsNewBar(double price, long time) {
+        return Math.max(getHigh(), price) - Math.min(getLow(), price) > range + PRICE_EPSILON;
+    }
+
+    @Override
+    protected boolean isComplete() {
+        return getHigh() - getLow() >= range - PRICE_EPSILON;
+    }
+}
@@ -1,5 +1,7 @@
 package jo.model;
 
+import java.util.concurrent.locks.StampedLock;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -7,57 +9,133 @@ import com.ib.client.Types.BarSize;
 
 import jo.util.BarSizeUtils;
 
+/*
+ * Builds bars of barSize out of realtime (5 sec) bars in O(1) per realtime bar.
+ *
+ * Buckets are aligned to epoch (UTC) boundaries of barSize, so a missing realtime bar doesn't shift the following
+ * bars. A bucket is completed by its last realtime bar or, if that one is missing, by the first bar of a later
+ * bucket. WAP is volume weighted.
+ *
+ * update() is called by the single MarketData writer, getFormingBar() can be called from any thread.
+ */
 public class RealtimeBarAggregator {
     private static final Logger LOG = LogManager.getLogger(RealtimeBarAggregator.class);
     private final MarketData md;
-    private final Bars srcBars;
-    private final int targetBarSizeRatio;
     private final BarSize barSize;
+    private final long barSeconds;
+    private final long srcBarSeconds;
+    private final StampedLock lock = new StampedLock();
+
+    // forming bar
+    private long bucketTime;
+    private double high;
+    private double low;
+    private double open;
+    private double close;
+    private double wapVolumeSum;
+    private double wapSum;
+    private long volume;
+    private int count;
+    private int srcCount;
 
-    public RealtimeBarAggregator(MarketData md, Bars srcBars, BarSize barSize) {
+    public RealtimeBarAggregator(MarketData md, BarSize barSize) {
         this.md = md;
-        this.srcBars = srcBars;
-        this.targetBarSizeRatio = BarSizeUtils.getRatio(barSize, BarSizeUtils.REALTIME_BAR_SIZE);
         this.barSize = barSize;
+        this.barSeconds = BarSizeUtils.getInSeconds(barSize);
+        this.srcBarSeconds = BarSizeUtils.getInSeconds(BarSizeUtils.REALTIME_BAR_SIZE);
+
+        // fail fast on unsupported sizes
+        BarSizeUtils.getRatio(barSize, BarSizeUtils.REALTIME_BAR_SIZE);
     }
 
-    public void update() {
-        int srcSize = srcBars.getSize();
-        if (srcSize > 0 && srcSize % targetBarSizeRatio == 0) {
-            int to = srcSize;
-            int from = srcSize - targetBarSizeRatio;
-
-            long time = srcBars.getTime().get(from);
-            double high = srcBars.getHigh().get(from);
-            double low = srcBars.getLow().get(from);
-            double open = srcBars.getOpen().get(from);
-            double close = srcBars.getClose().get(to - 1);
-            double wap = 0;
-            long volume = 0;
-            int count = 0;
-
-            for (int i = from; i < to; i++) {
-                high = Math.max(high, srcBars.getHigh().get(i));
-                low = Math.min(low, srcBars.getLow().get(i));
-                wap += srcBars.getWap().get(i);
-                volume += srcBars.getVolume().get(i);
-                count += srcBars.getCount().get(i);
+    public void update(Bar srcBar) {
+        long time = srcBar.getTime();
+        long bucket = time - Math.floorMod(time, barSeconds);
+
+        if (srcCount > 0 && bucket < bucketTime) {
+            LOG.warn("Ignoring out of order bar {} for {}, forming bar started at {}", time, barSize, bucketTime);
+            return;
+        }
+
+        if (srcCount > 0 && bucket != bucketTime) {
+            // last realtime bar(s) of the forming bucket are missing
+            complete();
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (srcCount == 0) {
+                bucketTime = bucket;
+                high = srcBar.getHigh();
+                low = srcBar.getLow();
+                open = srcBar.getOpen();
+                wapVolumeSum = 0;
+                wapSum = 0;
+                volume = 0;
+                count = 0;
+            } else {
+                high = Math.max(high, srcBar.getHigh());
+                low = Math.min(low, srcBar.getLow());
             }
 
-            wap = wap / targetBarSizeRatio; // TODO redo with volume weighted average
+            close = srcBar.getClose();
+            wapVolumeSum += srcBar.getWap() * srcBar.getVolume();
+            wapSum += srcBar.getWap();
+            volume += srcBar.getVolume();
+            count += srcBar.getCount();
+            srcCount++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
 
-            Bar bar = new Bar();
-            bar.setTime(time);
-            bar.setHigh(high);
-            bar.setLow(low);
-            bar.setOpen(open);
-            bar.setClose(close);
-            bar.setWap(wap);
-            bar.setVolume(volume);
-            bar.setCount(count);
+        if (time + srcBarSeconds >= bucketTime + barSeconds) {
+            complete();
+        }
+    }
 
-            md.addBar(barSize, bar);
+    private void complete() {
+        Bar bar = new Bar();
+
+        long stamp = lock.writeLock();
+        try {
+            copyTo(bar);
+            srcCount = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        md.addBar(barSize, bar);
+    }
+
+    /*
+     * Copies the bar being formed (not completed yet) into bar, returns false if there is none.
+     */
+    public boolean getFormingBar(Bar bar) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            boolean forming = srcCount > 0;
+            if (forming) {
+                copyTo(bar);
+            }
+            if (lock.validate(stamp)) {
+                return forming;
+            }
         }
     }
 
+    private void copyTo(Bar bar) {
+        bar.setTime(bucketTime);
+        bar.setHigh(high);
+        bar.setLow(low);
+        bar.setOpen(open);
+        bar.setClose(close);
+        // no volume, no weights
+        bar.setWap(volume > 0 ? wapVolumeSum / volume : wapSum / srcCount);
+        bar.setVolume(volume);
+        bar.setCount(count);
+    }
+
+    public BarSize getBarSize() {
+        return barSize;
+    }
 }
@@ -0,0 +1,155 @@
+package jo.model;
+
+/*
+ * Parses RT_TRD_VOLUME tick strings char by char, without splitting, substrings or boxing:
+ *
+ * price;size;time;total volume;vwap;single market maker
+ * Ex: 170.84;100;1519636841808;2100;170.83991182;true
+ *
+ * Values of the last parse() are kept in the parser, it is reused by its single (IB reader) thread.
+ */
+public class RtVolumeParser {
+    private static final int FIELDS = 6;
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final int[] ends = new int[FIELDS];
+
+    private double price;
+    private int size;
+    private long time;
+    private long dayVolume;
+    private double vwap;
+
+    /*
+     * Returns false if the tick has no trade (empty price/size, as sent for volume only updates) or is not an
+     * RT volume string. Throws NumberFormatException for malformed numbers.
+     */
+    public boolean parse(CharSequence value) {
+        int fields = 0;
+        int len = value.length();
+        for (int i = 0; i < len && fields < FIELDS; i++) {
+            if (value.charAt(i) == ';') {
+                ends[fields++] = i;
+            }
+        }
+        if (fields != FIELDS - 1) {
+            return false;
+        }
+        ends[FIELDS - 1] = len;
+
+        for (int f = 0; f < FIELDS - 1; f++) {
+            if (start(f) == ends[f]) {
+                return false;
+            }
+        }
+
+        price = parseDouble(value, start(0), ends[0]);
+        size = (int) parseLong(value, start(1), ends[1]);
+        time = parseLong(value, start(2), ends[2]);
+        dayVolume = parseLong(value, start(3), ends[3]);
+        vwap = parseDouble(value, start(4), ends[4]);
+        return true;
+    }
+
+    private int start(int field) {
+        return field == 0 ? 0 : ends[field - 1] + 1;
+    }
+
+    static long parseLong(CharSequence s, int from, int to) {
+        if (from == to) {
+            throw new NumberFormatException("Empty number");
+        }
+
+        boolean negative = s.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || to - i > 18) {
+            // 18 digits always fit a long
+            return Long.parseLong(s.subSequence(from, to).toString());
+        }
+
+        long val = 0;
+        for (; i < to; i++) {
+            val = val * 10 + digit(s, i, from, to);
+        }
+        return negative ? -val : val;
+    }
+
+    /*
+     * Plain decimals ("-123.456") with up to 15 significant digits are exact: mantissa and power of 10 are
+     * exact doubles and a single division rounds correctly, same as Double.parseDouble. Anything else goes to
+     * Double.parseDouble.
+     */
+    static double parseDouble(CharSequence s, int from, int to) {
+        boolean negative = s.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int fraction = -1;
+        for (; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || significant == 15) {
+                return Double.parseDouble(s.subSequence(from, to).toString());
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            digits++;
+            if (mantissa > 0) {
+                significant++;
+            }
+            if (fraction >= 0) {
+                fraction++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("For input string: \"" + s.subSequence(from, to) + "\"");
+        }
+        if (fraction > 22) {
+            return Double.parseDouble(s.subSequence(from, to).toString());
+        }
+
+        double val = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+        return negative ? -val : val;
+    }
+
+    private static int digit(CharSequence s, int i, int from, int to) {
+        char c = s.charAt(i);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("For input string: \"" + s.subSequence(from, to) + "\"");
+        }
+        return c - '0';
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /*
+     * Epoch millis
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public long getDayVolume() {
+        return dayVolume;
+    }
+
+    public double getVwap() {
+        return vwap;
+    }
+}
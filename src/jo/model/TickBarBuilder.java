@@ -0,0 +1,25 @@
+package jo.model;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * One bar every "ticks" trades
+ */
+public class TickBarBuilder extends TradeBarBuilder {
+    private final int ticks;
+
+    public TickBarBuilder(int ticks) {
+        this(ticks, DEFAULT_CAPACITY);
+    }
+
+    public TickBarBuilder(int ticks, int capacity) {
+        super(capacity);
+        Preconditions.checkArgument(ticks > 0, "Ticks must be positive: %s", ticks);
+        this.ticks = ticks;
+    }
+
+    @Override
+    protected boolean isComplete() {
+        return getTrades() >= ticks;
+    }
+}
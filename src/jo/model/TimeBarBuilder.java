@@ -0,0 +1,40 @@
+package jo.model;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Time bars of "seconds" (epoch aligned) from trades, e.g. 1 sec bars when 5 sec realtime bars are too coarse. A
+ * bar is emitted on the first trade of a later bar, seconds without trades have no bar.
+ */
+public class TimeBarBuilder extends TradeBarBuilder {
+    private final long millis;
+
+    public TimeBarBuilder(int seconds) {
+        this(seconds, DEFAULT_CAPACITY);
+    }
+
+    public TimeBarBuilder(int seconds, int capacity) {
+        super(capacity);
+        Preconditions.checkArgument(seconds > 0, "Seconds must be positive: %s", seconds);
+        this.millis = seconds * 1000L;
+    }
+
+    @Override
+    protected boolean startsNewBar(double price, long time) {
+        return bucket(time) != bucket(getStartTime());
+    }
+
+    @Override
+    protected boolean isComplete() {
+        return false;
+    }
+
+    @Override
+    protected long barTime(long time) {
+        return bucket(time) / 1000;
+    }
+
+    private long bucket(long time) {
+        return time - Math.floorMod(time, millis);
+    }
+}
@@ -0,0 +1,150 @@
+package jo.model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/*
+ * Builds bars out of individual trades (time & sales) into a bounded Bars of its own, so jo.tech indicators and
+ * bar close subscriptions work on them like on time bars. Subclasses decide when a bar is complete: every N trades,
+ * N shares, a price range, a time bucket...
+ *
+ * Bar time is the (epoch second) time of the first trade, WAP is volume weighted and count is the number of trades.
+ * A bar is emitted as soon as it is complete, there is no timer: a bar completed by a later trade only (time bars)
+ * is emitted on that trade.
+ *
+ * Fed by one thread at a time, MarketData does it under its monitor.
+ */
+public abstract class TradeBarBuilder {
+    private static final Logger LOG = LogManager.getLogger(TradeBarBuilder.class);
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Bars bars;
+    private TradeCursor cursor;
+    private long nextSequence;
+
+    // forming bar
+    private long startTime;
+    private double high;
+    private double low;
+    private double open;
+    private double close;
+    private double priceVolumeSum;
+    private long volume;
+    private int trades;
+
+    protected TradeBarBuilder(int capacity) {
+        this.bars = new Bars(capacity);
+    }
+
+    /*
+     * Feeds the trades of tape not seen yet, from the oldest one retained on first call
+     */
+    public void update(TradeTape tape) {
+        if (cursor == null) {
+            cursor = tape.cursor();
+            nextSequence = tape.getFirstSequence();
+        }
+
+        long count = tape.getCount();
+        while (nextSequence < count) {
+            try {
+                cursor.at(nextSequence);
+            } catch (IndexOutOfBoundsException e) {
+                long first = tape.getFirstSequence();
+                LOG.warn("Skipping {} trades evicted from the tape", first - nextSequence);
+                nextSequence = first;
+                continue;
+            }
+            update(cursor.getPrice(), cursor.getSize(), cursor.getTime());
+            nextSequence++;
+        }
+    }
+
+    /*
+     * time is in epoch millis, like RT volume trades
+     */
+    public void update(double price, int size, long time) {
+        if (trades > 0 && startsNewBar(price, time)) {
+            complete();
+        }
+
+        if (trades == 0) {
+            startTime = time;
+            high = price;
+            low = price;
+            open = price;
+            priceVolumeSum = 0;
+            volume = 0;
+        } else {
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+        }
+
+        close = price;
+        priceVolumeSum += price * size;
+        volume += size;
+        trades++;
+
+        if (isComplete()) {
+            complete();
+        }
+    }
+
+    /*
+     * Whether a trade can't go into the forming bar, which is completed first
+     */
+    protected boolean startsNewBar(double price, long time) {
+        return false;
+    }
+
+    /*
+     * Whether the forming bar is complete with its last trade
+     */
+    protected abstract boolean isComplete();
+
+    /*
+     * Epoch seconds of the bar started by a trade at time (millis)
+     */
+    protected long barTime(long time) {
+        return time / 1000;
+    }
+
+    private void complete() {
+        Bar bar = new Bar();
+        bar.setTime(barTime(startTime));
+        bar.setHigh(high);
+        bar.setLow(low);
+        bar.setOpen(open);
+        bar.setClose(close);
+        bar.setWap(volume > 0 ? priceVolumeSum / volume : close);
+        bar.setVolume(volume);
+        bar.setCount(trades);
+        trades = 0;
+
+        bars.addBar(bar);
+    }
+
+    public Bars getBars() {
+        return bars;
+    }
+
+    protected double getHigh() {
+        return high;
+    }
+
+    protected double getLow() {
+        return low;
+    }
+
+    protected long getVolume() {
+        return volume;
+    }
+
+    protected int getTrades() {
+        return trades;
+    }
+
+    protected long getStartTime() {
+        return startTime;
+    }
+}
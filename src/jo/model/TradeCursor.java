@@ -0,0 +1,80 @@
+package jo.model;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Flyweight over one trade of a TradeTape, see BarCursor. Mutable, one cursor per reader thread.
+ */
+public class TradeCursor {
+    private final TradeTape tape;
+    private long sequence = -1;
+    private double price;
+    private int size;
+    private long time;
+    private long dayVolume;
+    private double vwap;
+
+    TradeCursor(TradeTape tape) {
+        this.tape = tape;
+    }
+
+    public TradeCursor at(long seq) {
+        sequence = tape.load(seq, false, this);
+        return this;
+    }
+
+    public TradeCursor fromEnd(int offsetFromEnd) {
+        Preconditions.checkArgument(tape.getCount() > 0, "No trades yet");
+        sequence = tape.load(offsetFromEnd, true, this);
+        return this;
+    }
+
+    /*
+     * Calls visitor with this cursor moved to each trade of [from, to), e.g. the trades since last visit. The
+     * visitor must not keep the cursor.
+     */
+    public void forEach(long from, long to, TradeVisitor visitor) {
+        for (long s = from; s < to; s++) {
+            visitor.visit(at(s));
+        }
+    }
+
+    public MarketDataTrade toTrade() {
+        return new MarketDataTrade(price, size, time, (int) dayVolume, vwap);
+    }
+
+    void set(double price, int size, long time, long dayVolume, double vwap) {
+        this.price = price;
+        this.size = size;
+        this.time = time;
+        this.dayVolume = dayVolume;
+        this.vwap = vwap;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /*
+     * Epoch millis
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public long getDayVolume() {
+        return dayVolume;
+    }
+
+    public double getVwap() {
+        return vwap;
+    }
+}
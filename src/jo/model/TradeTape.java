@@ -0,0 +1,99 @@
+package jo.model;
+
+import java.util.concurrent.locks.StampedLock;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Time & sales ring: the last "capacity" trades in primitive columns, nothing allocated per trade.
+ *
+ * Trades are numbered by sequence from 0, getCount() is the number of trades ever added and trades
+ * [getFirstSequence(), getCount()) are retained. As with Bars a single writer adds trades under a sequence lock
+ * and readers never block, they read optimistically and retry when a trade was added meanwhile. Read through a
+ * TradeCursor.
+ */
+public class TradeTape {
+    private final int capacity;
+    private final int mask;
+    private final double[] price;
+    private final int[] size;
+    private final long[] time;
+    private final long[] dayVolume;
+    private final double[] vwap;
+    private final StampedLock lock = new StampedLock();
+    private volatile long count;
+
+    public TradeTape(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "Capacity must be a power of 2: %s", capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.price = new double[capacity];
+        this.size = new int[capacity];
+        this.time = new long[capacity];
+        this.dayVolume = new long[capacity];
+        this.vwap = new double[capacity];
+    }
+
+    /*
+     * Single writer only.
+     */
+    public void add(double price, int size, long time, long dayVolume, double vwap) {
+        long stamp = lock.writeLock();
+        try {
+            int i = (int) count & mask;
+            this.price[i] = price;
+            this.size[i] = size;
+            this.time[i] = time;
+            this.dayVolume[i] = dayVolume;
+            this.vwap[i] = vwap;
+            count++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public TradeCursor cursor() {
+        return new TradeCursor(this);
+    }
+
+    /*
+     * Copies trade seq (or the trade seq from the end) into cursor, returns the sequence of the trade.
+     */
+    long load(long seq, boolean fromEnd, TradeCursor cursor) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+            long count = this.count;
+            long first = Math.max(0, count - capacity);
+            long s = fromEnd ? count - 1 - seq : seq;
+            boolean retained = s >= first && s < count;
+            if (retained) {
+                int i = (int) s & mask;
+                cursor.set(price[i], size[i], time[i], dayVolume[i], vwap[i]);
+            }
+            if (lock.validate(stamp)) {
+                if (!retained) {
+                    throw new IndexOutOfBoundsException("Trade " + s + " not in [" + first + ", " + count + ")");
+                }
+                return s;
+            }
+        }
+    }
+
+    /*
+     * Number of trades ever added, also the sequence of the next trade
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /*
+     * Sequence of the oldest trade still retained
+     */
+    public long getFirstSequence() {
+        return Math.max(0, count - capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
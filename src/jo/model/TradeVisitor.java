@@ -0,0 +1,6 @@
+package jo.model;
+
+@FunctionalInterface
+public interface TradeVisitor {
+    void visit(TradeCursor trade);
+}
@@ -0,0 +1,26 @@
+package jo.model;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * One bar every "shares" traded. Trades are not split: the trade reaching the volume completes the bar with
+ * all its shares, so bars may be a bit over.
+ */
+public class VolumeBarBuilder extends TradeBarBuilder {
+    private final long shares;
+
+    public VolumeBarBuilder(long shares) {
+        this(shares, DEFAULT_CAPACITY);
+    }
+
+    public VolumeBarBuilder(long shares, int capacity) {
+        super(capacity);
+        Preconditions.checkArgument(shares > 0, "Shares must be positive: %s", shares);
+        this.shares = shares;
+    }
+
+    @Override
+    protected boolean isComplete() {
+        return getVolume() >= shares;
+    }
+}
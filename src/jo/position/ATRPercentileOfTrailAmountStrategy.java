@@ -1,49 +1,55 @@
 package jo.position;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import gnu.trove.list.TDoubleList;
-import gnu.trove.list.array.TDoubleArrayList;
 import jo.model.Bars;
 import jo.model.MarketData;
-
+import jo.tech.BarCache;
+import jo.tech.Indicators;
+import jo.tech.RollingQuantile;
+import jo.tech.StreamingIndicator;
+
+/*
+ * Percentile of the ATR (times multiplier) over the last "size" bars. The window is updated once per new bar,
+ * getTrailAmount() on every tick is a lookup, shared by all threads.
+ */
 public class ATRPercentileOfTrailAmountStrategy implements TrailAmountStrategy {
-    private List<TrailAmountStrategy> strategies;
-    private double percentile;
+    private final StreamingIndicator atr;
+    private final double multiplier;
+    private final int size;
+    private final double percentile;
+    private final RollingQuantile window;
+    private final BarCache<Double> value;
+    private int next = -1;
 
     public ATRPercentileOfTrailAmountStrategy(Bars bars, double multiplier, int period, int size, double percentile) {
+        this.atr = Indicators.of(bars).atr(period);
+        this.multiplier = multiplier;
+        this.size = size;
         this.percentile = percentile;
-        this.strategies = new ArrayList<>();
-
-        for (int offset = 0; offset < size; offset++) {
-            strategies.add(new ATRTrailAmountStrategy(bars, multiplier, period, offset));
-        }
+        this.window = new RollingQuantile(size);
+        this.value = new BarCache<>(bars, this::compute);
     }
 
     @Override
     public Double getTrailAmount(MarketData md) {
-        TDoubleList list = new TDoubleArrayList();
+        return value.get();
+    }
 
-        for (TrailAmountStrategy strategy : strategies) {
-            Double value = strategy.getTrailAmount(md);
-            if (value != null) {
-                list.add(value);
+    private Double compute(int barsSize) {
+        int last = barsSize - 1;
+
+        // bars older than the window don't count
+        next = Math.max(next, last - size + 1);
+        for (; next <= last; next++) {
+            double value = atr.valueAt(next);
+            if (!Double.isNaN(value)) {
+                window.add(value * multiplier);
             }
         }
 
-        if (list.isEmpty()) {
+        if (window.getCount() == 0) {
             return null;
         }
 
-        list.sort();
-
-        int position = (int) (list.size() * percentile);
-        if (position > list.size()) {
-            position = list.size() - 1;
-        }
-
-        return list.get(position);
+        return window.get(percentile);
     }
-
 }
@@ -2,36 +2,34 @@ package jo.position;
 
 import jo.model.Bars;
 import jo.model.MarketData;
-import jo.tech.ATR;
+import jo.tech.BarCache;
+import jo.tech.Indicators;
+import jo.tech.StreamingIndicator;
 
 public class ATRTrailAmountStrategy implements TrailAmountStrategy {
     private final double multiplier;
-    private final Bars bars;
-    private int prevBarsSize = -1;
-    private Double value;
-    private ATR atr;
+    private final int offset;
+    private final BarCache<Double> value;
+    private final StreamingIndicator atr;
 
     public ATRTrailAmountStrategy(Bars bars, double multiplier, int period, int offset) {
-        this.atr = new ATR(bars, period, offset);
+        this.atr = Indicators.of(bars).atr(period);
         this.multiplier = multiplier;
-        this.bars = bars;
+        this.offset = offset;
+        this.value = new BarCache<>(bars, this::compute);
     }
 
     @Override
     public Double getTrailAmount(MarketData md) {
-        int barsSize = bars.getSize();
-
-        if (barsSize == prevBarsSize) {
-            return value;
-        }
-
-        prevBarsSize = barsSize;
-        value = atr.get();
+        return value.get();
+    }
 
-        if (value != null) {
-            value = value * multiplier;
+    private Double compute(int barsSize) {
+        double value = atr.valueAt(barsSize - 1 - offset);
+        if (Double.isNaN(value)) {
+            return null;
         }
 
-        return value;
+        return value * multiplier;
     }
 }
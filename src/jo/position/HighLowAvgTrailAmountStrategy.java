@@ -8,6 +8,7 @@ import com.tictactec.ta.lib.RetCode;
 import jo.controller.IBroker;
 import jo.model.Bars;
 import jo.model.MarketData;
+import jo.tech.BarCache;
 
 // TODO Extract base class BarTrailAmountStrategy
 // TODO Use data for previous days
@@ -15,8 +16,7 @@ public class HighLowAvgTrailAmountStrategy implements TrailAmountStrategy {
     private final int period;
     private BarSize barSize;
     private Bars bars;
-    private int prevBarsSize = -1;
-    private Double value;
+    private BarCache<Double> value;
     private double extra;
     private Core talib = new Core();
 
@@ -38,21 +38,29 @@ public class HighLowAvgTrailAmountStrategy implements TrailAmountStrategy {
 
     @Override
     public Double getTrailAmount(MarketData md) {
-        if (bars == null) {
-            bars = md.getBars(barSize);
+        return getValue(md).get();
+    }
+
+    private synchronized BarCache<Double> getValue(MarketData md) {
+        if (value == null) {
+            if (bars == null) {
+                bars = md.getBars(barSize);
+            }
+            value = new BarCache<>(bars, this::compute);
         }
+        return value;
+    }
 
-        int barsSize = bars.getSize();
+    /*
+     * Serialized by the cache, talib is not thread safe
+     */
+    private Double compute(int barsSize) {
         if (barsSize < 2) { // at least 2 bars for simple average
             return null;
         }
 
-        if (barsSize == prevBarsSize) {
-            return value;
-        }
-
         int end = barsSize;
-        int begin = Math.max(end - period, 0);
+        int begin = Math.max(end - period, bars.getFirstIndex());
 
         double[] hiLoDiffs = new double[end - begin];
         for (int i = begin; i < end; i++) {
@@ -72,9 +80,6 @@ public class HighLowAvgTrailAmountStrategy implements TrailAmountStrategy {
             return null;
         }
 
-        value = out[0] + extra;
-        prevBarsSize = barsSize;
-
-        return value;
+        return out[0] + extra;
     }
 }
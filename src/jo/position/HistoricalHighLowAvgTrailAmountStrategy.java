@@ -26,7 +26,7 @@ import jo.util.Formats;
 public class HistoricalHighLowAvgTrailAmountStrategy implements TrailAmountStrategy {
     protected final Logger log = LogManager.getLogger(this.getClass());
     private final double extra;
-    private Double value;
+    private volatile Double value;
     private final int periodDays;
     private final BarSize barSize;
     private final Contract contract;
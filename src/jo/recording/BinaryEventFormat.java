@@ -0,0 +1,38 @@
+package jo.recording;
+
+/*
+ * Binary event journal, see BinaryEventWriter and BinaryEventReader.
+ *
+ * File: magic "JOEV", version byte, then records. Record: tag byte, event time as a zigzag varint delta from the
+ * previous record, then the fields of the event type in a fixed order:
+ * - TickPrice: tickType, price
+ * - TickSize: tickType, size
+ * - TickString: tickType, value
+ * - RealTimeBar: bar time (delta from the previous bar), high, low, open, close, wap, volume, count
+ * - MarketDepth: position, marketMaker, operation, side, price, size
+ * - Error: id, errorCode, errorMsg
+ *
+ * Doubles are 8 bytes big endian, ints and longs zigzag varints. Strings are a varint length + 1 (0 for null) and
+ * UTF-8 bytes. Enums and market makers are dictionary coded per file: varint 0 for null, 1 followed by the name the
+ * first time (it takes the next code), code + 2 afterwards. Codes don't depend on the TWS API enum order.
+ *
+ * The same records make the frames of a MappedJournal segment, see there.
+ */
+final class BinaryEventFormat {
+    static final int MAGIC = 0x4A4F4556; // JOEV
+    static final int VERSION = 1;
+
+    static final int TICK_PRICE = 1;
+    static final int TICK_SIZE = 2;
+    static final int TICK_STRING = 3;
+    static final int REAL_TIME_BAR = 4;
+    static final int MARKET_DEPTH = 5;
+    static final int ERROR = 6;
+
+    static final int NULL_SYMBOL = 0;
+    static final int NEW_SYMBOL = 1;
+    static final int FIRST_CODE = 2;
+
+    private BinaryEventFormat() {
+    }
+}
@@ -0,0 +1,97 @@
+package jo.recording;
+
+import static jo.recording.BinaryEventFormat.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import jo.recording.event.AbstractEvent;
+
+/*
+ * Reads a journal written by BinaryEventWriter, see BinaryEventFormat. Not thread safe.
+ */
+public class BinaryEventReader implements EventReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final EventDecoder decoder = new EventDecoder();
+    private final EventRecord record = new EventRecord();
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public BinaryEventReader(InputStream in) throws IOException {
+        this.in = in;
+
+        buf.limit(0);
+        while (buf.remaining() < 5) {
+            if (!fill()) {
+                throw new EOFException();
+            }
+        }
+        if (buf.getInt() != MAGIC) {
+            throw new IOException("Not a binary event journal");
+        }
+        int version = buf.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+    }
+
+    public static BinaryEventReader open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return new BinaryEventReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public AbstractEvent read() throws IOException {
+        if (!buf.hasRemaining() && !fill()) {
+            return null;
+        }
+
+        while (true) {
+            try {
+                decoder.decode(buf, record);
+                return record.toEvent();
+            } catch (BufferUnderflowException e) {
+                if (!fill()) {
+                    // file was not closed properly
+                    return null;
+                }
+            } catch (IllegalStateException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /*
+     * Reads more bytes, keeping the unread ones, growing the buffer for a record larger than it. False at the end
+     * of the stream.
+     */
+    private boolean fill() throws IOException {
+        buf.compact();
+        if (!buf.hasRemaining()) {
+            buf.flip();
+            buf = ByteBuffer.allocate(buf.capacity() * 2).put(buf);
+        }
+        int n = in.read(buf.array(), buf.position(), buf.remaining());
+        if (n > 0) {
+            buf.position(buf.position() + n);
+        }
+        buf.flip();
+        return n >= 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,110 @@
+package jo.recording;
+
+import static jo.recording.BinaryEventFormat.*;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import jo.recording.event.AbstractEvent;
+
+/*
+ * Writes market events in the binary journal format (see BinaryEventFormat): a tick takes about 12 bytes instead
+ * of about 80 as a JSON line, and no reflection or text formatting on the way.
+ *
+ * Events are encoded into an internal buffer, written to the stream when full or on flush(), a batch of events is
+ * one write. Not thread safe, one writer thread per file.
+ */
+public class BinaryEventWriter implements EventWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final FileDescriptor fd;
+    private final EventEncoder encoder = new EventEncoder();
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private long bytesWritten;
+    private long events;
+
+    public BinaryEventWriter(OutputStream out) {
+        this(out, null);
+    }
+
+    private BinaryEventWriter(OutputStream out, FileDescriptor fd) {
+        this.out = out;
+        this.fd = fd;
+
+        buf.putInt(MAGIC);
+        buf.put((byte) VERSION);
+    }
+
+    public static BinaryEventWriter open(File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        return new BinaryEventWriter(out, out.getFD());
+    }
+
+    @Override
+    public void write(AbstractEvent event) throws IOException {
+        try {
+            encoder.encode(event, buf);
+        } catch (BufferOverflowException e) {
+            flushBuffer();
+            while (true) {
+                try {
+                    encoder.encode(event, buf);
+                    break;
+                } catch (BufferOverflowException tooLarge) {
+                    // record larger than the buffer, a very long message
+                    buf = ByteBuffer.allocate(buf.capacity() * 2);
+                }
+            }
+        }
+        events++;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf.array(), 0, buf.position());
+        bytesWritten += buf.position();
+        buf.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /*
+     * FileDescriptor.sync() rather than the channel, not closed by an interrupt of the writer thread
+     */
+    @Override
+    public void force() throws IOException {
+        flush();
+        if (fd != null) {
+            fd.sync();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /*
+     * Bytes written to the stream so far, not counting the buffer
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,156 @@
+package jo.recording;
+
+import static jo.recording.BinaryEventFormat.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.ib.client.TickType;
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+/*
+ * Decodes the records written by an EventEncoder, in order, into an EventRecord flyweight. Nothing is allocated
+ * per record, except for a new dictionary entry.
+ */
+final class EventDecoder {
+    private long prevTime;
+    private long prevBarTime;
+    // dictionary, the enum or string each code stands for
+    private final List<Object> symbols = new ArrayList<>();
+
+    void reset() {
+        prevTime = 0;
+        prevBarTime = 0;
+        symbols.clear();
+    }
+
+    /*
+     * Decodes the record at the buffer position into record. If the record is cut by the buffer limit, throws
+     * BufferUnderflowException and leaves the buffer position and the state as they were.
+     */
+    void decode(ByteBuffer buf, EventRecord record) {
+        int start = buf.position();
+        long time = prevTime;
+        long barTime = prevBarTime;
+        int symbolCount = symbols.size();
+        try {
+            decodeRecord(buf, record);
+        } catch (BufferUnderflowException e) {
+            buf.position(start);
+            prevTime = time;
+            prevBarTime = barTime;
+            while (symbols.size() > symbolCount) {
+                symbols.remove(symbols.size() - 1);
+            }
+            throw e;
+        }
+    }
+
+    private void decodeRecord(ByteBuffer buf, EventRecord record) {
+        int tag = buf.get();
+        prevTime += getVarLong(buf);
+        record.start(buf, tag, prevTime);
+
+        switch (tag) {
+        case TICK_PRICE:
+            record.tickType = getSymbol(buf, TickType::valueOf);
+            record.price = buf.getDouble();
+            break;
+
+        case TICK_SIZE:
+            record.tickType = getSymbol(buf, TickType::valueOf);
+            record.size = getVarLong(buf);
+            break;
+
+        case TICK_STRING:
+            record.tickType = getSymbol(buf, TickType::valueOf);
+            getString(buf, record);
+            break;
+
+        case REAL_TIME_BAR:
+            prevBarTime += getVarLong(buf);
+            record.barTime = prevBarTime;
+            record.high = buf.getDouble();
+            record.low = buf.getDouble();
+            record.open = buf.getDouble();
+            record.close = buf.getDouble();
+            record.wap = buf.getDouble();
+            record.size = getVarLong(buf);
+            record.count = (int) getVarLong(buf);
+            break;
+
+        case MARKET_DEPTH:
+            record.position = (int) getVarLong(buf);
+            record.marketMaker = getSymbol(buf, Function.identity());
+            record.operation = getSymbol(buf, DeepType::valueOf);
+            record.side = getSymbol(buf, DeepSide::valueOf);
+            record.price = buf.getDouble();
+            record.size = getVarLong(buf);
+            break;
+
+        case ERROR:
+            record.position = (int) getVarLong(buf);
+            record.count = (int) getVarLong(buf);
+            getString(buf, record);
+            break;
+
+        default:
+            throw new IllegalStateException("Unknown record tag " + tag + " at " + (buf.position() - 1));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getSymbol(ByteBuffer buf, Function<String, T> decoder) {
+        int code = (int) getVarLong(buf);
+        if (code == NULL_SYMBOL) {
+            return null;
+        }
+
+        if (code == NEW_SYMBOL) {
+            int length = (int) getVarLong(buf) - 1;
+            byte[] bytes = new byte[length];
+            buf.get(bytes);
+            T symbol = decoder.apply(new String(bytes, StandardCharsets.UTF_8));
+            symbols.add(symbol);
+            return symbol;
+        }
+
+        int index = code - FIRST_CODE;
+        if (index >= symbols.size()) {
+            throw new IllegalStateException("Unknown dictionary code " + code);
+        }
+        return (T) symbols.get(index);
+    }
+
+    /*
+     * The string stays in the buffer, the record points to it
+     */
+    private static void getString(ByteBuffer buf, EventRecord record) {
+        int length = (int) getVarLong(buf) - 1;
+        record.stringOffset = buf.position();
+        record.stringLength = length;
+        if (length > 0) {
+            if (length > buf.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            buf.position(buf.position() + length);
+        }
+    }
+
+    private static long getVarLong(ByteBuffer buf) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IllegalStateException("Malformed varint at " + buf.position());
+    }
+}
@@ -0,0 +1,165 @@
+package jo.recording;
+
+import static jo.recording.BinaryEventFormat.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jo.model.Bar;
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.ErrorEvent;
+import jo.recording.event.MarketDepthEvent;
+import jo.recording.event.RealTimeBarEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.recording.event.TickSizeEvent;
+import jo.recording.event.TickStringEvent;
+
+/*
+ * Encodes events as BinaryEventFormat records into a buffer. Stateful (time deltas, dictionary): records must be
+ * decoded in order by an EventDecoder from the same starting state, reset() starts over (new file or segment).
+ */
+final class EventEncoder {
+    private long prevTime;
+    private long prevBarTime;
+    private final Map<Object, Integer> symbols = new HashMap<>();
+    private final List<Object> codes = new ArrayList<>();
+
+    void reset() {
+        prevTime = 0;
+        prevBarTime = 0;
+        symbols.clear();
+        codes.clear();
+    }
+
+    /*
+     * Appends the record of event at the buffer position. If it doesn't fit, throws BufferOverflowException and
+     * leaves the buffer position and the state as they were.
+     */
+    void encode(AbstractEvent event, ByteBuffer buf) {
+        int start = buf.position();
+        long time = prevTime;
+        long barTime = prevBarTime;
+        int symbolCount = codes.size();
+        try {
+            encodeRecord(event, buf);
+        } catch (BufferOverflowException e) {
+            buf.position(start);
+            prevTime = time;
+            prevBarTime = barTime;
+            while (codes.size() > symbolCount) {
+                symbols.remove(codes.remove(codes.size() - 1));
+            }
+            throw e;
+        }
+    }
+
+    private void encodeRecord(AbstractEvent event, ByteBuffer buf) {
+        if (event instanceof TickPriceEvent) {
+            TickPriceEvent e = (TickPriceEvent) event;
+            header(TICK_PRICE, e, buf);
+            putSymbol(e.getTickType(), buf);
+            buf.putDouble(e.getPrice());
+
+        } else if (event instanceof TickSizeEvent) {
+            TickSizeEvent e = (TickSizeEvent) event;
+            header(TICK_SIZE, e, buf);
+            putSymbol(e.getTickType(), buf);
+            putVarLong(e.getSize(), buf);
+
+        } else if (event instanceof TickStringEvent) {
+            TickStringEvent e = (TickStringEvent) event;
+            header(TICK_STRING, e, buf);
+            putSymbol(e.getTickType(), buf);
+            putString(e.getValue(), buf);
+
+        } else if (event instanceof RealTimeBarEvent) {
+            RealTimeBarEvent e = (RealTimeBarEvent) event;
+            header(REAL_TIME_BAR, e, buf);
+            Bar bar = e.getBar();
+            putVarLong(bar.getTime() - prevBarTime, buf);
+            prevBarTime = bar.getTime();
+            buf.putDouble(bar.getHigh());
+            buf.putDouble(bar.getLow());
+            buf.putDouble(bar.getOpen());
+            buf.putDouble(bar.getClose());
+            buf.putDouble(bar.getWap());
+            putVarLong(bar.getVolume(), buf);
+            putVarLong(bar.getCount(), buf);
+
+        } else if (event instanceof MarketDepthEvent) {
+            MarketDepthEvent e = (MarketDepthEvent) event;
+            header(MARKET_DEPTH, e, buf);
+            putVarLong(e.getPosition(), buf);
+            putSymbol(e.getMarketMaker(), buf);
+            putSymbol(e.getOperation(), buf);
+            putSymbol(e.getSide(), buf);
+            buf.putDouble(e.getPrice());
+            putVarLong(e.getSize(), buf);
+
+        } else if (event instanceof ErrorEvent) {
+            ErrorEvent e = (ErrorEvent) event;
+            header(ERROR, e, buf);
+            putVarLong(e.getOrderId(), buf);
+            putVarLong(e.getErrorCode(), buf);
+            putString(e.getErrorMsg(), buf);
+
+        } else {
+            throw new IllegalArgumentException("Unsupported event " + event.getType());
+        }
+    }
+
+    private void header(int tag, AbstractEvent event, ByteBuffer buf) {
+        buf.put((byte) tag);
+        putVarLong(event.getTime() - prevTime, buf);
+        prevTime = event.getTime();
+    }
+
+    /*
+     * TickType, DeepType, DeepSide or market maker. An enum and a string with the same name get different codes.
+     */
+    private void putSymbol(Object symbol, ByteBuffer buf) {
+        if (symbol == null) {
+            putVarLong(NULL_SYMBOL, buf);
+            return;
+        }
+
+        Integer code = symbols.get(symbol);
+        if (code != null) {
+            putVarLong(code + FIRST_CODE, buf);
+            return;
+        }
+
+        symbols.put(symbol, codes.size());
+        codes.add(symbol);
+        putVarLong(NEW_SYMBOL, buf);
+        putString(symbol instanceof Enum ? ((Enum<?>) symbol).name() : symbol.toString(), buf);
+    }
+
+    private static void putString(String value, ByteBuffer buf) {
+        if (value == null) {
+            putVarLong(0, buf);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(bytes.length + 1, buf);
+        buf.put(bytes);
+    }
+
+    /*
+     * Zigzag varint, small magnitudes of either sign take one byte
+     */
+    private static void putVarLong(long value, ByteBuffer buf) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+}
@@ -0,0 +1,47 @@
+package jo.recording;
+
+import com.ib.client.TickType;
+import com.ib.client.Types.DeepType;
+
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.MarketDepthEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.recording.event.TickSizeEvent;
+
+/*
+ * Conflation keys of the recorder rings: a tick price or size per tick type, a depth update per side and row. Only
+ * the latest value of those matters once the recorder is behind. Depth inserts and deletes shift the rows, bars,
+ * strings and errors have no key: never conflated.
+ */
+final class EventKeys {
+    private static final int TICK_TYPES = TickType.values().length;
+    private static final int DEPTH_ROWS = 64;
+
+    static final int COUNT = 2 * TICK_TYPES + 2 * DEPTH_ROWS;
+
+    private EventKeys() {
+    }
+
+    static int key(AbstractEvent event) {
+        if (event instanceof TickPriceEvent) {
+            TickType tickType = ((TickPriceEvent) event).getTickType();
+            return tickType == null ? -1 : tickType.ordinal();
+        }
+
+        if (event instanceof TickSizeEvent) {
+            TickType tickType = ((TickSizeEvent) event).getTickType();
+            return tickType == null ? -1 : TICK_TYPES + tickType.ordinal();
+        }
+
+        if (event instanceof MarketDepthEvent) {
+            MarketDepthEvent e = (MarketDepthEvent) event;
+            if (e.getOperation() != DeepType.UPDATE || e.getSide() == null
+                    || e.getPosition() < 0 || e.getPosition() >= DEPTH_ROWS) {
+                return -1;
+            }
+            return 2 * TICK_TYPES + e.getSide().ordinal() * DEPTH_ROWS + e.getPosition();
+        }
+
+        return -1;
+    }
+}
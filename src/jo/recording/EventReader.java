@@ -0,0 +1,66 @@
+package jo.recording;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import jo.recording.event.AbstractEvent;
+
+/*
+ * Reads back a market journal: mapped segments, binary stream or JSON lines (older recordings), see open()
+ */
+public interface EventReader extends Closeable {
+
+    /*
+     * Next event, null at the end of the file. A truncated last event (recorder killed while writing) is the end.
+     */
+    @Nullable
+    AbstractEvent read() throws IOException;
+
+    /*
+     * JournalReader for a MappedJournal directory, binary or JSON reader by the first bytes of a file
+     */
+    static EventReader open(File file) throws IOException {
+        if (file.isDirectory()) {
+            return JournalReader.open(file);
+        }
+
+        InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        try {
+            in.mark(4);
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                magic = (magic << 8) | (in.read() & 0xFF);
+            }
+            in.reset();
+
+            if (magic == BinaryEventFormat.MAGIC) {
+                return new BinaryEventReader(in);
+            }
+            return new JsonEventReader(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    static List<AbstractEvent> readAll(File file) {
+        List<AbstractEvent> events = new ArrayList<>();
+        try (EventReader in = open(file)) {
+            AbstractEvent event;
+            while ((event = in.read()) != null) {
+                events.add(event);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,190 @@
+package jo.recording;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.ib.client.TickType;
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+import jo.model.Bar;
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.ErrorEvent;
+import jo.recording.event.MarketDepthEvent;
+import jo.recording.event.RealTimeBarEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.recording.event.TickSizeEvent;
+import jo.recording.event.TickStringEvent;
+
+/*
+ * Flyweight over the current record of a binary reader, see JournalReader. Fields are decoded in place, strings
+ * stay in the buffer until getValue() or toEvent() is called. Valid until the reader moves to the next record.
+ *
+ * Only the getters of the record type are meaningful.
+ */
+public final class EventRecord {
+    public static final int TICK_PRICE = BinaryEventFormat.TICK_PRICE;
+    public static final int TICK_SIZE = BinaryEventFormat.TICK_SIZE;
+    public static final int TICK_STRING = BinaryEventFormat.TICK_STRING;
+    public static final int REAL_TIME_BAR = BinaryEventFormat.REAL_TIME_BAR;
+    public static final int MARKET_DEPTH = BinaryEventFormat.MARKET_DEPTH;
+    public static final int ERROR = BinaryEventFormat.ERROR;
+
+    private ByteBuffer buf;
+    private int type;
+    private long time;
+
+    TickType tickType;
+    double price;
+    long size;
+    int stringOffset;
+    int stringLength;
+
+    long barTime;
+    double high;
+    double low;
+    double open;
+    double close;
+    double wap;
+    int count;
+
+    int position;
+    String marketMaker;
+    DeepType operation;
+    DeepSide side;
+
+    void start(ByteBuffer buf, int type, long time) {
+        this.buf = buf;
+        this.type = type;
+        this.time = time;
+    }
+
+    /*
+     * One of the constants above
+     */
+    public int getType() {
+        return type;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    /*
+     * Tick events
+     */
+    public TickType getTickType() {
+        return tickType;
+    }
+
+    /*
+     * TickPrice and MarketDepth
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /*
+     * TickSize and MarketDepth size, RealTimeBar volume
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /*
+     * TickString value or Error message, allocates
+     */
+    public String getValue() {
+        if (stringLength < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[stringLength];
+        for (int i = 0; i < stringLength; i++) {
+            bytes[i] = buf.get(stringOffset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Copies the RealTimeBar into bar
+     */
+    public Bar getBar(Bar bar) {
+        bar.setTime(barTime);
+        bar.setHigh(high);
+        bar.setLow(low);
+        bar.setOpen(open);
+        bar.setClose(close);
+        bar.setWap(wap);
+        bar.setVolume(size);
+        bar.setCount(count);
+        return bar;
+    }
+
+    /*
+     * MarketDepth
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public String getMarketMaker() {
+        return marketMaker;
+    }
+
+    public DeepType getOperation() {
+        return operation;
+    }
+
+    public DeepSide getSide() {
+        return side;
+    }
+
+    /*
+     * Error
+     */
+    public int getOrderId() {
+        return position;
+    }
+
+    public int getErrorCode() {
+        return count;
+    }
+
+    /*
+     * Event object of the record, allocates
+     */
+    public AbstractEvent toEvent() {
+        AbstractEvent event;
+        switch (type) {
+        case TICK_PRICE:
+            event = new TickPriceEvent(tickType, price);
+            break;
+
+        case TICK_SIZE:
+            event = new TickSizeEvent(tickType, (int) size);
+            break;
+
+        case TICK_STRING:
+            event = new TickStringEvent(tickType, getValue());
+            break;
+
+        case REAL_TIME_BAR:
+            event = new RealTimeBarEvent(getBar(new Bar()));
+            break;
+
+        case MARKET_DEPTH:
+            event = new MarketDepthEvent(position, marketMaker, operation, side, price, (int) size);
+            break;
+
+        case ERROR:
+            event = new ErrorEvent(position, count, getValue());
+            break;
+
+        default:
+            throw new IllegalStateException("Unknown record type " + type);
+        }
+
+        event.setTime(time);
+        return event;
+    }
+}
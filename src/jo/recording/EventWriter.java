@@ -0,0 +1,21 @@
+package jo.recording;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+import jo.recording.event.AbstractEvent;
+
+/*
+ * Appends market events to a journal: a binary stream (BinaryEventWriter) or memory mapped segments
+ * (MappedJournal). One writer thread.
+ */
+public interface EventWriter extends Closeable, Flushable {
+
+    void write(AbstractEvent event) throws IOException;
+
+    /*
+     * Flushes and writes to the disk (fsync)
+     */
+    void force() throws IOException;
+}
@@ -0,0 +1,103 @@
+package jo.recording;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * When a GroupCommitWriter flushes its journal, and whether it also forces it to the disk (fsync):
+ * - perBatch(): after each batch of events, readers and the OS see every batch
+ * - every(millis): at most every millis, a burst of batches is one write
+ * - onClose(): only when the buffer is full and on close, the least syscalls
+ *
+ * fromProperty() reads -Djo.recorder.flush=batch|<millis>ms|close, with a +sync suffix to also fsync, batch by
+ * default. Mapped journals are in the page cache as soon as written, only sync makes a difference for them.
+ */
+public final class FlushPolicy {
+    private static final long PER_BATCH = 0;
+    private static final long ON_CLOSE = Long.MAX_VALUE;
+
+    private final long intervalMillis;
+    private final boolean sync;
+
+    private FlushPolicy(long intervalMillis, boolean sync) {
+        this.intervalMillis = intervalMillis;
+        this.sync = sync;
+    }
+
+    public static FlushPolicy perBatch() {
+        return new FlushPolicy(PER_BATCH, false);
+    }
+
+    public static FlushPolicy every(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + millis);
+        }
+        return new FlushPolicy(millis, false);
+    }
+
+    public static FlushPolicy onClose() {
+        return new FlushPolicy(ON_CLOSE, false);
+    }
+
+    /*
+     * Same policy with an fsync after each flush
+     */
+    public FlushPolicy withSync() {
+        return new FlushPolicy(intervalMillis, true);
+    }
+
+    public static FlushPolicy fromProperty() {
+        return of(System.getProperty("jo.recorder.flush", "batch"));
+    }
+
+    public static FlushPolicy of(String spec) {
+        boolean sync = spec.endsWith("+sync");
+        String when = sync ? spec.substring(0, spec.length() - "+sync".length()) : spec;
+
+        FlushPolicy policy;
+        if (when.equals("batch")) {
+            policy = perBatch();
+        } else if (when.equals("close")) {
+            policy = onClose();
+        } else if (when.matches("\\d+ms")) {
+            policy = every(Long.parseLong(when.substring(0, when.length() - 2)));
+        } else {
+            throw new IllegalArgumentException("Unsupported flush policy " + spec);
+        }
+        return sync ? policy.withSync() : policy;
+    }
+
+    public boolean isPerBatch() {
+        return intervalMillis == PER_BATCH;
+    }
+
+    public boolean isOnClose() {
+        return intervalMillis == ON_CLOSE;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public boolean isSync() {
+        return sync;
+    }
+
+    /*
+     * Flush due at now, last flush at lastFlush, both System.nanoTime()
+     */
+    boolean isDue(long lastFlush, long now) {
+        if (isPerBatch()) {
+            return true;
+        }
+        if (isOnClose()) {
+            return false;
+        }
+        return now - lastFlush >= TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    @Override
+    public String toString() {
+        String when = isPerBatch() ? "batch" : isOnClose() ? "close" : intervalMillis + "ms";
+        return sync ? when + "+sync" : when;
+    }
+}
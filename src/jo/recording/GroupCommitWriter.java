@@ -0,0 +1,174 @@
+package jo.recording;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import jo.recording.event.AbstractEvent;
+import jo.util.MpscRing;
+
+/*
+ * Recorded stream of one symbol with group commit: drain() takes every event available in one go (up to
+ * MAX_BATCH), encodes the batch into the journal buffer or mapping, and flushes once per batch, per interval or on
+ * close (FlushPolicy). A burst of depth updates is one write instead of one per event.
+ *
+ * Driven by one RecordingService worker, always the same: the events of a stream are written in order. Events lost
+ * or conflated by a full ring are logged, at most every 10 seconds.
+ */
+public class GroupCommitWriter {
+    private static final Logger log = LogManager.getLogger(GroupCommitWriter.class);
+    static final int MAX_BATCH = 4096;
+    private static final long OVERFLOW_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final String name;
+    private final MpscRing<AbstractEvent> q;
+    private final EventWriter writer;
+    private final FlushPolicy policy;
+    private final RecorderStats stats = new RecorderStats();
+    private final List<AbstractEvent> batch = new ArrayList<>(MAX_BATCH);
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private volatile boolean closing;
+
+    private long lastFlush = System.nanoTime();
+    private boolean dirty;
+    private long lastOverflowLog;
+    private long lostLogged;
+
+    public GroupCommitWriter(String name, MpscRing<AbstractEvent> q, EventWriter writer, FlushPolicy policy) {
+        this.name = name;
+        this.q = q;
+        this.writer = writer;
+        this.policy = policy;
+    }
+
+    /*
+     * Writes the events available. True if there may be more already (full batch).
+     */
+    boolean drain() throws IOException {
+        int size = q.drainTo(batch, MAX_BATCH);
+        writeBatch();
+        logOverflow();
+        return size == MAX_BATCH;
+    }
+
+    /*
+     * System.nanoTime() of the next flush by interval, Long.MAX_VALUE if none is pending
+     */
+    long getFlushDue() {
+        if (!dirty || policy.isPerBatch() || policy.isOnClose()) {
+            return Long.MAX_VALUE;
+        }
+        return lastFlush + TimeUnit.MILLISECONDS.toNanos(policy.getIntervalMillis());
+    }
+
+    private void writeBatch() throws IOException {
+        long start = System.nanoTime();
+        int size = batch.size();
+        for (int i = 0; i < size; i++) {
+            writer.write(batch.get(i));
+        }
+        batch.clear();
+        dirty |= size > 0;
+
+        long now = System.nanoTime();
+        if (dirty && policy.isDue(lastFlush, now)) {
+            flush();
+            lastFlush = now;
+        }
+        if (size > 0) {
+            stats.batch(size, size + q.size(), System.nanoTime() - start);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (policy.isSync()) {
+            writer.force();
+        } else {
+            writer.flush();
+        }
+        dirty = false;
+        stats.flush();
+    }
+
+    private void logOverflow() {
+        long lost = q.getDropped() + q.getConflated();
+        long now = System.nanoTime();
+        if (lost != lostLogged && now - lastOverflowLog >= OVERFLOW_LOG_INTERVAL) {
+            log.warn("{} behind: {}", name, q);
+            lostLogged = lost;
+            lastOverflowLog = now;
+        }
+    }
+
+    /*
+     * Asks the worker to close the stream
+     */
+    void requestClose() {
+        closing = true;
+    }
+
+    boolean isClosing() {
+        return closing;
+    }
+
+    /*
+     * Closes the ring, producers drop from now on, writes what is in it and closes the journal
+     */
+    void close() {
+        q.close();
+        try {
+            q.drainTo(batch, q.size());
+            writeBatch();
+            if (policy.isSync()) {
+                writer.force();
+            }
+        } catch (Exception e) {
+            log.error(e, e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error(e, e);
+            }
+            closed.countDown();
+        }
+    }
+
+    void awaitClosed() throws InterruptedException {
+        closed.await();
+    }
+
+    public boolean isClosed() {
+        return closed.getCount() == 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MpscRing<AbstractEvent> getQueue() {
+        return q;
+    }
+
+    public int getQueueDepth() {
+        return q.size();
+    }
+
+    public RecorderStats getStats() {
+        return stats;
+    }
+
+    public FlushPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + stats + ", " + q;
+    }
+}
@@ -0,0 +1,190 @@
+package jo.recording;
+
+import static jo.recording.MappedJournal.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import javax.annotation.Nullable;
+
+import jo.recording.event.AbstractEvent;
+
+/*
+ * Reads a MappedJournal in place: next() decodes the next record into the record() flyweight, straight from the
+ * mapped segment, no copy and no object per event. read() materializes events for the EventReader users.
+ *
+ * Tails a journal being written: next() is false when the writer has nothing more yet, and true again after the
+ * next write. isFinished() once the writer has closed the journal. A journal whose writer died (no end marker) is
+ * finished at its last record for open(dir).readAll(), a tailing reader keeps waiting. A segment file shorter than
+ * the segment size is read to its end and remapped when the writer has grown it.
+ *
+ * Not thread safe, one reader per thread.
+ */
+public class JournalReader implements EventReader {
+    private final File dir;
+    @Nullable
+    private final MappedJournal journal;
+    private final EventDecoder decoder = new EventDecoder();
+    private final EventRecord record = new EventRecord();
+
+    private int segment;
+    private MappedByteBuffer buf;
+    private boolean finished;
+
+    JournalReader(File dir, @Nullable MappedJournal journal) throws IOException {
+        this.dir = dir;
+        this.journal = journal;
+
+        int[] segments = segments(dir);
+        this.segment = segments.length == 0 ? 0 : segments[0];
+    }
+
+    /*
+     * Reader of a journal written by another process, or a recorded one
+     */
+    public static JournalReader open(File dir) throws IOException {
+        if (!dir.isDirectory()) {
+            throw new IOException("Not a journal directory " + dir);
+        }
+        return new JournalReader(dir, null);
+    }
+
+    /*
+     * Moves to the next record, false if there is none yet
+     */
+    public boolean next() throws IOException {
+        while (!finished) {
+            if (buf == null && !mapSegment()) {
+                return false;
+            }
+
+            int frame = buf.position();
+            if (journal != null && journal.getCommitted() <= position(segment, frame)) {
+                return false;
+            }
+
+            if (frame + 4 > buf.capacity() && !remap(frame + 4)) {
+                // the file ends here, the writer grows it before writing further
+                if (segmentFile(dir, segment + 1).exists()) {
+                    nextSegment();
+                    continue;
+                }
+                return false;
+            }
+
+            int length = buf.getInt(frame);
+            if (length > 0) {
+                int end = frame + 4 + length;
+                if (end > buf.capacity() && !remap(end)) {
+                    throw new IOException("Truncated record at " + segmentFile(dir, segment) + ":" + frame);
+                }
+                buf.limit(end);
+                buf.position(frame + 4);
+                try {
+                    decoder.decode(buf, record);
+                } catch (RuntimeException e) {
+                    throw new IOException("Corrupted record at " + segmentFile(dir, segment) + ":" + frame, e);
+                } finally {
+                    buf.limit(buf.capacity());
+                }
+                buf.position(end);
+                return true;
+            }
+
+            boolean hasNext = segmentFile(dir, segment + 1).exists();
+            if (length == END_OF_SEGMENT || hasNext) {
+                // rolled, closed and reopened, or the writer died before the end of the segment
+                nextSegment();
+            } else if (length == END_OF_JOURNAL) {
+                finished = true;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * The current record, valid until the next call to next()
+     */
+    public EventRecord record() {
+        return record;
+    }
+
+    /*
+     * Next event, null if there is none yet
+     */
+    @Override
+    @Nullable
+    public AbstractEvent read() throws IOException {
+        return next() ? record.toEvent() : null;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private boolean mapSegment() throws IOException {
+        File file = segmentFile(dir, segment);
+        if (journal != null && journal.getCommitted() < position(segment, HEADER_SIZE) || !file.exists()) {
+            return false;
+        }
+
+        MappedByteBuffer buf;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            if (size < HEADER_SIZE) {
+                // being created
+                return false;
+            }
+            buf = raf.getChannel().map(MapMode.READ_ONLY, 0, size);
+        }
+
+        int magic = buf.getInt(0);
+        if (magic == 0) {
+            return false;
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a journal segment " + file);
+        }
+        int version = buf.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version + " in " + file);
+        }
+
+        buf.position(HEADER_SIZE);
+        decoder.reset();
+        this.buf = buf;
+        return true;
+    }
+
+    /*
+     * Maps the segment again if its file has grown to at least size
+     */
+    private boolean remap(int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile(dir, segment), "r")) {
+            long length = raf.length();
+            if (length < size) {
+                return false;
+            }
+            int position = buf.position();
+            buf = raf.getChannel().map(MapMode.READ_ONLY, 0, length);
+            buf.position(position);
+            return true;
+        }
+    }
+
+    private void nextSegment() {
+        segment++;
+        buf = null;
+    }
+
+    @Override
+    public void close() {
+        buf = null;
+        finished = true;
+    }
+}
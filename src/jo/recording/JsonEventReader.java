@@ -0,0 +1,53 @@
+package jo.recording;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.EventTypeRegistry;
+
+/*
+ * One JSON event per line, as recorded before the binary format
+ */
+public class JsonEventReader implements EventReader {
+    private final BufferedReader in;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JsonEventReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+    }
+
+    @Override
+    public AbstractEvent read() throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        }
+
+        try {
+            JsonNode json = objectMapper.readTree(line);
+            String type = json.get("type").textValue();
+            Class<? extends AbstractEvent> valueType = EventTypeRegistry.getByType(type);
+
+            return objectMapper.convertValue(json, valueType);
+        } catch (JsonEOFException eofEx) {
+            // file was not closed properly
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
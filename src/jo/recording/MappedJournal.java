@@ -0,0 +1,260 @@
+package jo.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+
+import jo.recording.event.AbstractEvent;
+
+/*
+ * Append only event journal in a directory of memory mapped segment files, 00000000.journal, 00000001.journal...
+ * Events are encoded straight into the mapping, no stream and no syscall per event: written data is in the page
+ * cache as soon as write() returns, force() makes it durable. Read back, also while being written, with
+ * JournalReader.
+ *
+ * Segment: 16 bytes header (magic "JOJR", version, segment size, reserved), then frames. Frame: int length of the
+ * record, then a BinaryEventFormat record. Records are encoded with a fresh dictionary and time base per segment, a
+ * segment can be decoded on its own. The length is written after the record, 0 is a frame not committed yet, -1
+ * ends the segment (next record didn't fit) and -2 the journal (closed). The last 4 bytes of a segment are kept for
+ * the marker.
+ *
+ * A segment file starts at 64KB (or the segment size if smaller) and doubles, remapped, until the segment size,
+ * close() then trims the last one to its end marker. Windows can't truncate a file that is still mapped and Java 8
+ * has no unmap: there the trim fails and the last segment keeps up to half of its size unused. Readers take a file
+ * shorter than the segment size as the end of what has been written so far.
+ *
+ * One writer thread. Readers of the same JVM (reader()) wait for the volatile committed position, other processes
+ * for the length word: the record is stored before its length and x86 doesn't reorder stores, the JVM gives no
+ * such guarantee for mapped memory across processes.
+ *
+ * Mappings are released by the GC, Java 8 has no unmap.
+ */
+public class MappedJournal implements EventWriter {
+    private static final Logger LOG = LogManager.getLogger(MappedJournal.class);
+
+    static final int MAGIC = 0x4A4F4A52; // JOJR
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int END_OF_SEGMENT = -1;
+    static final int END_OF_JOURNAL = -2;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MIN_SEGMENT_SIZE = 1024;
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    private final File dir;
+    private final int segmentSize;
+    private final EventEncoder encoder = new EventEncoder();
+
+    private int segment;
+    private MappedByteBuffer buf;
+    private long events;
+    private boolean closed;
+    // segment << 32 | offset of the end of the last committed frame or marker
+    private volatile long committed;
+
+    public MappedJournal(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedJournal(File dir, int segmentSize) throws IOException {
+        Preconditions.checkArgument(segmentSize >= MIN_SEGMENT_SIZE, "Segment size %s, min %s", segmentSize, MIN_SEGMENT_SIZE);
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create journal directory " + dir);
+        }
+
+        // reopened: new segments after the existing ones
+        int[] segments = segments(dir);
+        openSegment(segments.length == 0 ? 0 : segments[segments.length - 1] + 1);
+    }
+
+    @Override
+    public void write(AbstractEvent event) throws IOException {
+        Preconditions.checkState(!closed, "Journal closed");
+        int frame = buf.position();
+        try {
+            append(event, frame);
+        } catch (BufferOverflowException e) {
+            if (frame == HEADER_SIZE) {
+                throw tooLarge(event);
+            }
+            buf.putInt(frame, END_OF_SEGMENT);
+            openSegment(segment + 1);
+            try {
+                append(event, HEADER_SIZE);
+            } catch (BufferOverflowException tooLarge) {
+                throw tooLarge(event);
+            }
+        }
+        events++;
+    }
+
+    private static IllegalArgumentException tooLarge(AbstractEvent event) {
+        return new IllegalArgumentException("Event larger than a segment: " + event.getType());
+    }
+
+    /*
+     * Throws BufferOverflowException if the event doesn't fit in the rest of the segment
+     */
+    private void append(AbstractEvent event, int frame) throws IOException {
+        while (true) {
+            int size = buf.capacity();
+            if (frame + 4 <= size - 4) {
+                buf.limit(size - 4);
+                buf.position(frame + 4);
+                try {
+                    encoder.encode(event, buf);
+                    break;
+                } catch (BufferOverflowException e) {
+                    buf.position(frame);
+                    if (size == segmentSize) {
+                        throw e;
+                    }
+                } finally {
+                    buf.limit(size);
+                }
+            } else if (size == segmentSize) {
+                throw new BufferOverflowException();
+            }
+            grow(frame);
+        }
+
+        int end = buf.position();
+        buf.putInt(frame, end - frame - 4);
+        committed = position(segment, end);
+    }
+
+    /*
+     * Doubles the file and its mapping, the old mapping stays valid for readers until they remap
+     */
+    private void grow(int frame) throws IOException {
+        buf = map(segment, (int) Math.min((long) buf.capacity() * 2, segmentSize));
+        buf.position(frame);
+    }
+
+    /*
+     * The file is closed once mapped, the mapping doesn't need it
+     */
+    private MappedByteBuffer map(int segment, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile(dir, segment), "rw")) {
+            raf.setLength(size);
+            return raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private void openSegment(int segment) throws IOException {
+        if (buf != null) {
+            buf.force();
+        }
+
+        buf = map(segment, Math.min(INITIAL_SIZE, segmentSize));
+
+        // magic last, a reader of another process maps the segment once it is there
+        buf.putInt(4, VERSION);
+        buf.putInt(8, segmentSize);
+        buf.putInt(0, MAGIC);
+        buf.position(HEADER_SIZE);
+
+        this.segment = segment;
+        encoder.reset();
+        committed = position(segment, HEADER_SIZE);
+    }
+
+    /*
+     * Written data is visible to all readers already
+     */
+    @Override
+    public void flush() {
+    }
+
+    /*
+     * Writes the current segment to the disk, previous ones were on roll
+     */
+    @Override
+    public void force() {
+        buf.force();
+    }
+
+    /*
+     * Marks the end of the journal, tailing readers stop there, and trims the last segment after the marker
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        int end = buf.position();
+        buf.putInt(end, END_OF_JOURNAL);
+        buf.force();
+        committed = position(segment, end + 4);
+        buf = null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile(dir, segment), "rw")) {
+            raf.setLength(end + 4);
+        } catch (IOException e) {
+            // still mapped, Windows
+            LOG.debug("Can't trim {}: {}", segmentFile(dir, segment), e.getMessage());
+        }
+    }
+
+    /*
+     * Reader of this journal from its first segment, tails the writes
+     */
+    public JournalReader reader() throws IOException {
+        return new JournalReader(dir, this);
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public int getSegment() {
+        return segment;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    long getCommitted() {
+        return committed;
+    }
+
+    static long position(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    static File segmentFile(File dir, int segment) {
+        return new File(dir, String.format("%08d.journal", segment));
+    }
+
+    /*
+     * Indexes of the segment files, in order
+     */
+    static int[] segments(File dir) {
+        String[] names = dir.list((d, name) -> name.matches("\\d{8}\\.journal"));
+        if (names == null) {
+            return new int[0];
+        }
+        int[] segments = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            segments[i] = Integer.parseInt(names[i].substring(0, 8));
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+}
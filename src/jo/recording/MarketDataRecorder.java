@@ -1,22 +1,14 @@
 package jo.recording;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ib.client.Contract;
 import com.ib.client.TickType;
 import com.ib.client.Types.DeepSide;
@@ -35,99 +27,88 @@ import jo.recording.event.RealTimeBarEvent;
 import jo.recording.event.TickPriceEvent;
 import jo.recording.event.TickSizeEvent;
 import jo.recording.event.TickStringEvent;
+import jo.util.MpscRing;
 
+/*
+ * Records the market data of a contract to a MappedJournal in log/<date>/market, read back with EventReader or
+ * tailed with JournalReader.
+ */
 public class MarketDataRecorder implements IRealTimeBarHandler, ITopMktDataHandler, IErrorHandler, IDeepMktDataHandler {
     private static final Logger log = LogManager.getLogger(MarketDataRecorder.class);
-    private PrintWriter ps;
-    private BlockingQueue<AbstractEvent> q = new ArrayBlockingQueue<>(64000);
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private final GroupCommitWriter writer;
+    private final MpscRing<AbstractEvent> q;
+    private final String symbol;
 
     public MarketDataRecorder(Contract contract) {
-        this.objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        this.symbol = contract.symbol();
+        this.writer = RecordingService.get().open("MarketRecorder#" + symbol, openJournal(symbol));
+        this.q = writer.getQueue();
 
-        String symbol = contract.symbol();
-        openFile(symbol);
-
-        Thread writerThread = new Thread(this::pollQueue);
-        writerThread.setDaemon(true);
-        writerThread.setName("MarketRecorder#" + contract.symbol());
-        writerThread.start();
-
-        log.info("Recording " + contract.symbol());
+        log.info("Recording " + symbol);
     }
 
     public void stop() {
-        if (ps != null) {
-            ps.close();
-        }
+        RecordingService.get().close(writer);
+        log.info("Stopped recording {}: {}, {}", symbol, writer.getStats(), q);
     }
 
-    public void pollQueue() {
-        try {
-            while (true) {
-                Object event = q.take();
-                String str = objectMapper.writeValueAsString(event);
-                write(str);
-            }
-        } catch (InterruptedException e) {
-            // terminated
-        } catch (Exception e) {
-            log.error(e, e);
-        }
+    public RecorderStats getStats() {
+        return writer.getStats();
     }
 
-    private void write(String str) {
-        ps.println(str);
-        ps.flush();
+    /*
+     * Dropped and conflated event counts
+     */
+    public MpscRing<AbstractEvent> getQueue() {
+        return q;
     }
 
-    private void openFile(String symbol) {
+    private static EventWriter openJournal(String symbol) {
         LocalDateTime now = LocalDateTime.now();
 
         File dir = new File("log/" + now.format(DateTimeFormatter.ISO_LOCAL_DATE) + "/market");
         dir.mkdirs();
 
-        String fileName = String.format("Market-%s-%s.log",
+        String fileName = String.format("Market-%s-%s",
                 symbol,
                 StringUtils.replace(now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), ":", "-"));
 
-        File logFile = new File(dir, fileName);
+        File journalDir = new File(dir, fileName);
 
         try {
-            OutputStream out = new FileOutputStream(logFile, true);
-            ps = new PrintWriter(out);
-        } catch (FileNotFoundException e) {
+            return new MappedJournal(journalDir);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
     public void tickPrice(TickType tickType, double price) {
-        q.add(new TickPriceEvent(tickType, price));
+        q.offer(new TickPriceEvent(tickType, price));
     }
 
     @Override
     public void tickSize(TickType tickType, int size) {
-        q.add(new TickSizeEvent(tickType, size));
+        q.offer(new TickSizeEvent(tickType, size));
     }
 
     @Override
     public void tickString(TickType tickType, String value) {
-        q.add(new TickStringEvent(tickType, value));
+        q.offer(new TickStringEvent(tickType, value));
     }
 
     @Override
     public void realtimeBar(Bar bar) {
-        q.add(new RealTimeBarEvent(bar));
+        q.offer(new RealTimeBarEvent(bar));
     }
 
     public void updateMktDepth(int position, String marketMaker, DeepType operation, DeepSide side, double price, int size) {
-        q.add(new MarketDepthEvent(position, marketMaker, operation, side, price, size));
+        q.offer(new MarketDepthEvent(position, marketMaker, operation, side, price, size));
     }
 
     @Override
     public void error(int id, int errorCode, String errorMsg) {
-        q.add(new ErrorEvent(id, errorCode, errorMsg));
+        q.offer(new ErrorEvent(id, errorCode, errorMsg));
     }
 
     @Override
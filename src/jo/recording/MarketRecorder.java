@@ -1,21 +1,14 @@
 package jo.recording;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.ArrayBlockingQueue;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ib.client.Contract;
 import com.ib.client.TickType;
 import com.ib.client.Types.DeepSide;
@@ -34,29 +27,25 @@ import jo.recording.event.RealTimeBarEvent;
 import jo.recording.event.TickPriceEvent;
 import jo.recording.event.TickSizeEvent;
 import jo.recording.event.TickStringEvent;
+import jo.util.MpscRing;
 
 public class MarketRecorder implements Recorder {
     private static final Logger log = LogManager.getLogger(MarketRecorder.class);
     private boolean recordDeepBook = true;
     private Contract contract;
-    private OutputStream out;
-    private PrintWriter ps;
-    private ArrayBlockingQueue<AbstractEvent> q = new ArrayBlockingQueue<>(64000);
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private final GroupCommitWriter writer;
+    private final MpscRing<AbstractEvent> q;
 
+    /*
+     * Records from now on: the connection messages forwarded before start() too
+     */
     public MarketRecorder(Contract contract) {
         this.contract = contract;
-        objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        this.writer = RecordingService.get().open("MarketRecorder-" + contract.symbol(), openJournal());
+        this.q = writer.getQueue();
     }
 
     public void start(IBroker ib) {
-        openFile();
-
-        Thread writerThread = new Thread(this::pollQueue);
-        writerThread.setDaemon(true);
-        writerThread.setName("MarketRecorder-" + contract.symbol());
-        writerThread.start();
-
         ib.reqRealTimeBars(contract, WhatToShow.TRADES, true, (b) -> addBarEvent(b));
         ib.reqTopMktData(contract, "165,375,295", /* snapshot */false, new TopMktDataHandler());
 
@@ -67,64 +56,51 @@ public class MarketRecorder implements Recorder {
 
     @Override
     public void stop() {
-        if (ps != null) {
-            ps.close();
-        }
+        RecordingService.get().close(writer);
+        log.info("Stopped recording {}: {}, {}", contract.symbol(), writer.getStats(), q);
     }
 
-    private void addBarEvent(Bar bar) {
-        q.add(new RealTimeBarEvent(bar));
+    public RecorderStats getStats() {
+        return writer.getStats();
     }
 
-    private void updateMktDepth(int position, String marketMaker, DeepType operation, DeepSide side, double price, int size) {
-        q.add(new MarketDepthEvent(position, marketMaker, operation, side, price, size));
+    /*
+     * Dropped and conflated event counts
+     */
+    public MpscRing<AbstractEvent> getQueue() {
+        return q;
     }
 
-    public void pollQueue() {
-        try {
-            while (true) {
-                Object event = q.take();
-                String str = objectMapper.writeValueAsString(event); // wtf, writeValue(stream) closes the stream
-                write(str);
-            }
-        } catch (InterruptedException e) {
-            // terminated
-        } catch (Exception e) {
-            log.error(e, e);
-        }
+    private void addBarEvent(Bar bar) {
+        q.offer(new RealTimeBarEvent(bar));
     }
 
-    private void write(String str) {
-        if (ps == null) {
-            openFile();
-        }
-        ps.println(str);
-        ps.flush();
+    private void updateMktDepth(int position, String marketMaker, DeepType operation, DeepSide side, double price, int size) {
+        q.offer(new MarketDepthEvent(position, marketMaker, operation, side, price, size));
     }
 
-    private void openFile() {
+    private EventWriter openJournal() {
         LocalDateTime now = LocalDateTime.now();
 
         File dir = new File("log/" + now.format(DateTimeFormatter.ISO_LOCAL_DATE));
         dir.mkdir();
 
-        String fileName = String.format("Market-%s-%s.log",
+        String fileName = String.format("Market-%s-%s",
                 contract.symbol(),
                 StringUtils.replace(now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), ":", "-"));
 
-        File logFile = new File(dir, fileName);
+        File journalDir = new File(dir, fileName);
 
         try {
-            out = new FileOutputStream(logFile, true);
-            ps = new PrintWriter(out);
-        } catch (FileNotFoundException e) {
+            return new MappedJournal(journalDir);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
     public void error(int id, int errorCode, String errorMsg) {
-        q.add(new ErrorEvent(id, errorCode, errorMsg));
+        q.offer(new ErrorEvent(id, errorCode, errorMsg));
     }
 
     public MarketRecorder withDeepBook(boolean recordDeepBook) {
@@ -136,17 +112,17 @@ public class MarketRecorder implements Recorder {
 
         @Override
         public void tickPrice(TickType tickType, double price) {
-            q.add(new TickPriceEvent(tickType, price));
+            q.offer(new TickPriceEvent(tickType, price));
         }
 
         @Override
         public void tickSize(TickType tickType, int size) {
-            q.add(new TickSizeEvent(tickType, size));
+            q.offer(new TickSizeEvent(tickType, size));
         }
 
         @Override
         public void tickString(TickType tickType, String value) {
-            q.add(new TickStringEvent(tickType, value));
+            q.offer(new TickStringEvent(tickType, value));
         }
 
         @Override
@@ -0,0 +1,92 @@
+package jo.recording;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Metrics of a GroupCommitWriter: queue depth, batch size, write latency (encoding the batch, and flushing it when
+ * the policy says so). Updated by the writer thread only, read from any thread.
+ */
+public final class RecorderStats {
+    private volatile long batches;
+    private volatile long events;
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSize;
+    private volatile int maxQueueDepth;
+    private volatile long flushes;
+    private volatile long lastWriteNanos;
+    private volatile long maxWriteNanos;
+    private volatile long totalWriteNanos;
+
+    void batch(int size, int queueDepth, long writeNanos) {
+        batches++;
+        events += size;
+        lastBatchSize = size;
+        if (size > maxBatchSize) {
+            maxBatchSize = size;
+        }
+        if (queueDepth > maxQueueDepth) {
+            maxQueueDepth = queueDepth;
+        }
+        lastWriteNanos = writeNanos;
+        if (writeNanos > maxWriteNanos) {
+            maxWriteNanos = writeNanos;
+        }
+        totalWriteNanos += writeNanos;
+    }
+
+    void flush() {
+        flushes++;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public double getAvgBatchSize() {
+        long batches = this.batches;
+        return batches == 0 ? 0 : events / (double) batches;
+    }
+
+    /*
+     * Deepest queue seen when draining, events of the batch included
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getLastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    public long getMaxWriteNanos() {
+        return maxWriteNanos;
+    }
+
+    public long getAvgWriteNanos() {
+        long batches = this.batches;
+        return batches == 0 ? 0 : totalWriteNanos / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("events %d, batches %d (avg %.1f, max %d), max queue %d, flushes %d, write avg %d us, max %d us",
+                events, batches, getAvgBatchSize(), maxBatchSize, maxQueueDepth, flushes,
+                TimeUnit.NANOSECONDS.toMicros(getAvgWriteNanos()), TimeUnit.NANOSECONDS.toMicros(maxWriteNanos));
+    }
+}
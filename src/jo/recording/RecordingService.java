@@ -0,0 +1,180 @@
+package jo.recording;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+
+import jo.recording.event.AbstractEvent;
+import jo.util.MpscRing;
+import jo.util.OverflowPolicy;
+import jo.util.Sequencer;
+import jo.util.Subscription;
+
+/*
+ * Writes the journals of all the recorded symbols with a small fixed set of I/O worker threads, instead of one
+ * thread per symbol: threads and CPU stay flat as the universe grows. Mapped journals don't keep their file open,
+ * a symbol costs its mapping, not a file handle.
+ *
+ * Each stream (GroupCommitWriter) is assigned to one worker for its lifetime, round robin: its events are written
+ * in order. A worker waits on one Subscription, its streams' rings publish to its Sequencer, and drains at most one
+ * batch per stream and pass so a busy symbol doesn't hold back the others.
+ *
+ * get() is the process wide service, -Djo.recorder.threads workers, 2 by default (1 on a single CPU).
+ */
+public class RecordingService {
+    private static final Logger log = LogManager.getLogger(RecordingService.class);
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static RecordingService instance;
+
+    private final Worker[] workers;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public RecordingService(int threads) {
+        Preconditions.checkArgument(threads > 0, "Threads must be positive: %s", threads);
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker("Recorder-" + (i + 1));
+        }
+    }
+
+    public static synchronized RecordingService get() {
+        if (instance == null) {
+            int threads = Integer.getInteger("jo.recorder.threads", Math.min(2, Runtime.getRuntime().availableProcessors()));
+            instance = new RecordingService(threads);
+        }
+        return instance;
+    }
+
+    /*
+     * Stream writing to writer, 64K events ring, overflow policy from -Djo.recorder.overflow=block|drop|conflate
+     * (conflate by default), flush policy from -Djo.recorder.flush
+     */
+    public GroupCommitWriter open(String name, EventWriter writer) {
+        OverflowPolicy overflow = OverflowPolicy.of(System.getProperty("jo.recorder.overflow", "conflate"));
+        return open(name, writer, overflow, FlushPolicy.fromProperty());
+    }
+
+    public GroupCommitWriter open(String name, EventWriter writer, OverflowPolicy overflow, FlushPolicy flush) {
+        Preconditions.checkState(!workers[0].sequencer.isStopped(), "Recording service shut down");
+        Worker worker = workers[Math.floorMod(next.getAndIncrement(), workers.length)];
+        MpscRing<AbstractEvent> q = new MpscRing<>(QUEUE_CAPACITY, overflow, EventKeys::key, EventKeys.COUNT, worker.sequencer);
+        GroupCommitWriter stream = new GroupCommitWriter(name, q, writer, flush);
+        worker.add(stream);
+        return stream;
+    }
+
+    /*
+     * Writes what the stream has queued and closes its journal, waits for it
+     */
+    public void close(GroupCommitWriter stream) {
+        stream.requestClose();
+        for (Worker worker : workers) {
+            worker.sequencer.publish();
+        }
+        try {
+            stream.awaitClosed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Closes all the streams and stops the workers
+     */
+    public void shutdown() {
+        for (Worker worker : workers) {
+            worker.sequencer.stop();
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    public int getStreams() {
+        int streams = 0;
+        for (Worker worker : workers) {
+            streams += worker.streams.length;
+        }
+        return streams;
+    }
+
+    private static final class Worker {
+        private static final GroupCommitWriter[] NONE = {};
+
+        final Sequencer sequencer = new Sequencer();
+        final Subscription subscription = new Subscription(sequencer);
+        final Thread thread;
+        volatile GroupCommitWriter[] streams = NONE;
+
+        Worker(String name) {
+            thread = new Thread(this::run);
+            thread.setDaemon(true);
+            thread.setName(name);
+            thread.start();
+        }
+
+        synchronized void add(GroupCommitWriter stream) {
+            GroupCommitWriter[] copy = Arrays.copyOf(streams, streams.length + 1);
+            copy[streams.length] = stream;
+            streams = copy;
+        }
+
+        synchronized void remove(GroupCommitWriter stream) {
+            streams = Arrays.stream(streams)
+                    .filter(s -> s != stream)
+                    .toArray(GroupCommitWriter[]::new);
+        }
+
+        private void run() {
+            while (true) {
+                boolean more = false;
+                long due = Long.MAX_VALUE;
+                GroupCommitWriter[] streams = this.streams;
+                for (GroupCommitWriter stream : streams) {
+                    if (stream.isClosing()) {
+                        close(stream);
+                        continue;
+                    }
+                    try {
+                        more |= stream.drain();
+                        due = Math.min(due, stream.getFlushDue());
+                    } catch (Exception e) {
+                        log.error("Failed to write " + stream.getName(), e);
+                        close(stream);
+                    }
+                }
+
+                if (more) {
+                    continue;
+                }
+                boolean events = due == Long.MAX_VALUE ? subscription.await() : subscription.await(due - System.nanoTime());
+                if (!events && (subscription.isStopped() || Thread.currentThread().isInterrupted())) {
+                    break;
+                }
+            }
+
+            for (GroupCommitWriter stream : this.streams) {
+                close(stream);
+            }
+        }
+
+        private void close(GroupCommitWriter stream) {
+            remove(stream);
+            stream.close();
+            log.info("Closed {}", stream);
+        }
+    }
+}
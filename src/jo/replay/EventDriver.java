@@ -5,6 +5,7 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import com.ib.client.Contract;
 
 import jo.model.MarketData;
+import jo.model.OrderBook;
 import jo.recording.event.AbstractEvent;
 import jo.recording.event.ErrorEvent;
 import jo.recording.event.MarketDepthEvent;
@@ -41,12 +42,13 @@ public class EventDriver {
 
         } else if (event instanceof MarketDepthEvent) {
             MarketDepthEvent typedEvent = (MarketDepthEvent) event;
-            // TODO Add support of deep book
-            // topMktDataHandler.tickString(typedEvent.getTickType(), typedEvent.getValue());
             marketData.updateMktDepth(typedEvent.getPosition(), typedEvent.getMarketMaker(), typedEvent.getOperation(), typedEvent.getSide(), typedEvent.getPrice(), typedEvent.getSize());
 
         } else if (event instanceof ErrorEvent) {
-            // TODO skip for now, needed for deep book reset
+            ErrorEvent typedEvent = (ErrorEvent) event;
+            if (typedEvent.getErrorCode() == OrderBook.RESET_ERROR_CODE) {
+                marketData.resetMktDepth();
+            }
         } else {
             throw new RuntimeException("Unsupported event: " + ToStringBuilder.reflectionToString(event));
         }
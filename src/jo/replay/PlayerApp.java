@@ -1,9 +1,6 @@
 package jo.replay;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,22 +8,15 @@ import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.core.io.JsonEOFException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 import com.ib.client.Contract;
-import com.ib.client.Types.BarSize;
 
 import jo.bot.Bot;
 import jo.bot.DonchianBot;
 import jo.constant.Stocks;
-import jo.model.MarketData;
 import jo.position.DollarValueWithRiskPositionSizeStrategy;
+import jo.recording.EventReader;
 import jo.recording.event.AbstractEvent;
-import jo.recording.event.EventTypeRegistry;
 import jo.recording.event.MarketDepthEvent;
 import jo.recording.event.TickSizeEvent;
 
@@ -71,7 +61,7 @@ public class PlayerApp {
                         Stats stats = player.replay(file, bot);
                         bot.shutdown();
 
-                        player.ctx.getMarketData(SYMBOL).getSignal().signalAll();
+                        player.ctx.getMarketData(SYMBOL).shutdown();
 
                         t.append(String.format("\t%d\t%.2f",
                                 stats.getFilledOrders().size(),
@@ -117,10 +107,8 @@ public class PlayerApp {
         ctx.setReplayBroker(replayBroker);
         ctx.setOrderManager(orderManager);
 
-        MarketData marketData = ctx.initMarketData(contract);
-        for (BarSize barSize : BarSize.values()) {
-            marketData.initBars(barSize);
-        }
+        // bots request the bar sizes they need
+        ctx.initMarketData(contract);
     }
 
     private void readAndPlay(File file) {
@@ -139,28 +127,8 @@ public class PlayerApp {
     private List<AbstractEvent> loadEvents(File file) {
         List<AbstractEvent> events = EVENTS_CACHE.get(file);
         if (events == null) {
-            events = new ArrayList<>();
-
-            try (BufferedReader in = new BufferedReader(new FileReader(file))) {
-                String line;
-
-                ObjectMapper objectMapper = new ObjectMapper();
-                objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
-
-                while ((line = in.readLine()) != null) {
-                    JsonNode json = objectMapper.readTree(line);
-                    String type = json.get("type").textValue();
-                    Class<? extends AbstractEvent> valueType = EventTypeRegistry.getByType(type);
-
-                    AbstractEvent event = objectMapper.convertValue(json, valueType);
-                    events.add(event);
-                }
-            } catch (JsonEOFException eofEx) {
-                // ignore, file was not closed properly
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
+            // binary journal or JSON lines
+            events = EventReader.readAll(file);
             EVENTS_CACHE.put(file, events);
         }
         return events;
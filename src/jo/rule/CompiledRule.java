@@ -0,0 +1,249 @@
+package jo.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+import gnu.trove.list.TDoubleList;
+import jo.model.Bars;
+import jo.model.Quote;
+import jo.rule.Expr.Op;
+import jo.tech.StreamingIndicator;
+
+/*
+ * Rules flattened into slots: every distinct term of the rules gets a slot in a double array, in evaluation order
+ * (arguments first). Each slot knows which sources (Bars, quote snapshot) it depends on. evaluate() checks
+ * the version of every source (bars count, quote version) and recomputes only the slots of the sources that
+ * changed, so a tick that changed nothing costs a few volatile reads, and a quote tick doesn't re-read bars.
+ *
+ * Not thread safe, one instance per bot thread.
+ */
+public class CompiledRule {
+    private static final int MAX_SOURCES = Long.SIZE;
+
+    private final Map<Expr, Integer> slotsByExpr = new HashMap<>();
+    private final double[] slots;
+    private final Op[] ops;
+    private final int[] arg0;
+    private final int[] arg1;
+    private final int[] offsets;
+    private final long[] masks;
+
+    // leaves, by slot
+    private final Bars[] bars;
+    private final TDoubleList[] columns;
+    private final StreamingIndicator[] indicators;
+    private final Quote[] quotes;
+
+    // sources, by bit
+    private final Object[] sources;
+    private final long[] versions;
+    private boolean evaluated;
+
+    private CompiledRule(List<Expr> terms, List<Object> sources) {
+        int size = terms.size();
+        this.slots = new double[size];
+        this.ops = new Op[size];
+        this.arg0 = new int[size];
+        this.arg1 = new int[size];
+        this.offsets = new int[size];
+        this.masks = new long[size];
+        this.bars = new Bars[size];
+        this.columns = new TDoubleList[size];
+        this.indicators = new StreamingIndicator[size];
+        this.quotes = new Quote[size];
+        this.sources = sources.toArray();
+        this.versions = new long[this.sources.length];
+    }
+
+    /*
+     * Compiles the terms of all rules together, shared terms are evaluated once
+     */
+    public static CompiledRule compile(Expr... rules) {
+        List<Expr> terms = new ArrayList<>();
+        List<Object> sources = new ArrayList<>();
+        Map<Expr, Integer> order = new HashMap<>();
+        for (Expr rule : rules) {
+            flatten(rule, terms, order);
+        }
+
+        for (Expr term : terms) {
+            Object source = sourceOf(term);
+            if (source != null && !containsIdentity(sources, source)) {
+                sources.add(source);
+            }
+        }
+        Preconditions.checkArgument(sources.size() <= MAX_SOURCES, "Too many sources: %s", sources.size());
+
+        CompiledRule compiled = new CompiledRule(terms, sources);
+        // n-ary terms too, mapped to the last slot of their chain
+        compiled.slotsByExpr.putAll(order);
+        for (int i = 0; i < terms.size(); i++) {
+            compiled.init(i, terms.get(i));
+        }
+        return compiled;
+    }
+
+    // post order, arguments first, each distinct term once; n-ary terms become chains of binary slots
+    private static int flatten(Expr expr, List<Expr> terms, Map<Expr, Integer> order) {
+        Integer slot = order.get(expr);
+        if (slot != null) {
+            return slot;
+        }
+
+        if ((expr.op == Op.AND && expr.args.length > 2) || (expr.op == Op.DEFINED && expr.args.length > 1)) {
+            Expr chain = unary(expr.op, expr.args[0]);
+            for (int i = 1; i < expr.args.length; i++) {
+                chain = Expr.and(chain, unary(expr.op, expr.args[i]));
+            }
+            slot = flatten(chain, terms, order);
+            order.put(expr, slot);
+            return slot;
+        }
+
+        for (Expr arg : expr.args) {
+            flatten(arg, terms, order);
+        }
+        terms.add(expr);
+        order.put(expr, terms.size() - 1);
+        return terms.size() - 1;
+    }
+
+    private static Expr unary(Op op, Expr arg) {
+        return op == Op.AND ? arg : Expr.defined(arg);
+    }
+
+    private static Object sourceOf(Expr expr) {
+        switch (expr.op) {
+        case BAR:
+            return expr.source;
+        case INDICATOR:
+            return ((StreamingIndicator) expr.source).getBars();
+        case LAST_PRICE:
+            return expr.source;
+        default:
+            return null;
+        }
+    }
+
+    private static boolean containsIdentity(List<Object> list, Object o) {
+        for (Object e : list) {
+            if (e == o) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void init(int slot, Expr expr) {
+        ops[slot] = expr.op;
+        offsets[slot] = expr.offset;
+
+        switch (expr.op) {
+        case CONST:
+            slots[slot] = expr.constant;
+            return;
+        case BAR:
+            bars[slot] = (Bars) expr.source;
+            columns[slot] = bars[slot].getDoubleSeries(expr.type);
+            break;
+        case INDICATOR:
+            indicators[slot] = (StreamingIndicator) expr.source;
+            break;
+        case LAST_PRICE:
+            quotes[slot] = (Quote) expr.source;
+            break;
+        default:
+            arg0[slot] = slotOf(expr.args[0]);
+            arg1[slot] = expr.args.length > 1 ? slotOf(expr.args[1]) : arg0[slot];
+            masks[slot] = masks[arg0[slot]] | masks[arg1[slot]];
+            return;
+        }
+
+        Object source = sourceOf(expr);
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] == source) {
+                masks[slot] = 1L << i;
+            }
+        }
+    }
+
+    /*
+     * Slot of a term of the compiled rules, for get(int) and isTrue(int)
+     */
+    public int slotOf(Expr expr) {
+        Integer slot = slotsByExpr.get(expr);
+        Preconditions.checkArgument(slot != null, "Not compiled: %s", expr);
+        return slot;
+    }
+
+    /*
+     * Recomputes the slots whose sources changed since the previous evaluation
+     */
+    public void evaluate() {
+        long changed = 0;
+        for (int i = 0; i < sources.length; i++) {
+            long version = versionOf(sources[i]);
+            if (!evaluated || version != versions[i]) {
+                versions[i] = version;
+                changed |= 1L << i;
+            }
+        }
+        evaluated = true;
+
+        if (changed == 0) {
+            return;
+        }
+
+        for (int slot = 0; slot < slots.length; slot++) {
+            if ((masks[slot] & changed) != 0) {
+                slots[slot] = compute(slot);
+            }
+        }
+    }
+
+    private static long versionOf(Object source) {
+        if (source instanceof Bars) {
+            return ((Bars) source).getSize();
+        }
+        return ((Quote) source).getVersion();
+    }
+
+    private double compute(int slot) {
+        switch (ops[slot]) {
+        case BAR:
+            Bars b = bars[slot];
+            int index = b.getSize() - 1 - offsets[slot];
+            if (index < b.getFirstIndex()) {
+                return Double.NaN;
+            }
+            try {
+                return columns[slot].get(index);
+            } catch (IndexOutOfBoundsException e) {
+                // evicted meanwhile, the bars changed and the next evaluation recomputes
+                return Double.NaN;
+            }
+        case INDICATOR:
+            return indicators[slot].get(offsets[slot]);
+        case LAST_PRICE:
+            return quotes[slot].getLastPrice();
+        default:
+            return Expr.apply(ops[slot], slots[arg0[slot]], slots[arg1[slot]]);
+        }
+    }
+
+    public double get(int slot) {
+        return slots[slot];
+    }
+
+    public boolean isTrue(int slot) {
+        return slots[slot] != 0 && !Double.isNaN(slots[slot]);
+    }
+
+    public int size() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,176 @@
+package jo.rule;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+
+import jo.model.BarType;
+import jo.model.Bars;
+import jo.model.Quote;
+import jo.tech.StreamingIndicator;
+import jo.util.PriceUtils;
+
+/*
+ * Term of a declarative rule: a bar value, an indicator value or the last price at an offset, arithmetic over
+ * them, comparisons and conjunctions. Booleans are 1 or 0, a term with an undefined input (not enough bars) is NaN
+ * and comparisons with NaN are false.
+ *
+ * Immutable, equal terms are evaluated once by CompiledRule whatever the number of rules using them.
+ */
+public final class Expr {
+    enum Op {
+        CONST, BAR, INDICATOR, LAST_PRICE, SUB, ABS, PCT_CHANGE, FIX_PRICE, GT, LT, AND, DEFINED
+    }
+
+    final Op op;
+    final Expr[] args;
+    // Bars, StreamingIndicator or Quote, compared by identity
+    final Object source;
+    final BarType type;
+    final int offset;
+    final double constant;
+    private final int hash;
+
+    private Expr(Op op, Expr[] args, Object source, BarType type, int offset, double constant) {
+        this.op = op;
+        this.args = args;
+        this.source = source;
+        this.type = type;
+        this.offset = offset;
+        this.constant = constant;
+        this.hash = Objects.hash(op, Arrays.hashCode(args), System.identityHashCode(source), type, offset, constant);
+    }
+
+    private static Expr of(Op op, Expr... args) {
+        return new Expr(op, args, null, null, 0, 0);
+    }
+
+    public static Expr constant(double value) {
+        return new Expr(Op.CONST, new Expr[0], null, null, 0, value);
+    }
+
+    /*
+     * Value of the bar at offset from the last one
+     */
+    public static Expr bar(Bars bars, BarType type, int offset) {
+        return new Expr(Op.BAR, new Expr[0], bars, type, offset, 0);
+    }
+
+    public static Expr indicator(StreamingIndicator series, int offset) {
+        return new Expr(Op.INDICATOR, new Expr[0], series, null, offset, 0);
+    }
+
+    /*
+     * Last price of a quote snapshot, refreshed by its owner (MarketData.getQuote) before each evaluation: the rule
+     * and its owner see the same price
+     */
+    public static Expr lastPrice(Quote snapshot) {
+        return new Expr(Op.LAST_PRICE, new Expr[0], snapshot, null, 0, 0);
+    }
+
+    public Expr minus(Expr other) {
+        return of(Op.SUB, this, other);
+    }
+
+    public Expr abs() {
+        return of(Op.ABS, this);
+    }
+
+    /*
+     * (this - past) / past, see BarsPctChange.of
+     */
+    public Expr changeFrom(Expr past) {
+        return of(Op.PCT_CHANGE, past, this);
+    }
+
+    /*
+     * PriceUtils.fixPriceVariance, NaN stays NaN
+     */
+    public Expr fixPriceVariance() {
+        return of(Op.FIX_PRICE, this);
+    }
+
+    public Expr gt(Expr other) {
+        return of(Op.GT, this, other);
+    }
+
+    public Expr lt(Expr other) {
+        return of(Op.LT, this, other);
+    }
+
+    public static Expr and(Expr... conditions) {
+        Preconditions.checkArgument(conditions.length > 0, "No condition");
+        return of(Op.AND, conditions);
+    }
+
+    /*
+     * True if none of the terms is NaN
+     */
+    public static Expr defined(Expr... terms) {
+        Preconditions.checkArgument(terms.length > 0, "No term");
+        return of(Op.DEFINED, terms);
+    }
+
+    static double apply(Op op, double a, double b) {
+        switch (op) {
+        case SUB:
+            return a - b;
+        case ABS:
+            return Math.abs(a);
+        case PCT_CHANGE:
+            return (b - a) / a;
+        case FIX_PRICE:
+            return Double.isNaN(a) ? Double.NaN : PriceUtils.fixPriceVariance(a);
+        case GT:
+            return a > b ? 1 : 0;
+        case LT:
+            return a < b ? 1 : 0;
+        case AND:
+            return a != 0 && b != 0 ? 1 : 0;
+        case DEFINED:
+            return Double.isNaN(a) ? 0 : 1;
+        default:
+            throw new IllegalArgumentException("Not an operator: " + op);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Expr)) {
+            return false;
+        }
+        Expr other = (Expr) obj;
+        return hash == other.hash
+                && op == other.op
+                && source == other.source
+                && type == other.type
+                && offset == other.offset
+                && Double.compare(constant, other.constant) == 0
+                && Arrays.equals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        switch (op) {
+        case CONST:
+            return Double.toString(constant);
+        case BAR:
+            return type + "[" + offset + "]";
+        case INDICATOR:
+            return source.getClass().getSimpleName() + "[" + offset + "]";
+        case LAST_PRICE:
+            return "lastPrice";
+        default:
+            return op + Arrays.toString(args);
+        }
+    }
+}
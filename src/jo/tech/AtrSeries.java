@@ -0,0 +1,67 @@
+package jo.tech;
+
+import jo.model.BarCursor;
+import jo.model.Bars;
+
+/*
+ * TA-Lib atr over the whole series, Wilder smoothing seeded with the average of the first period true ranges.
+ * The flex variant averages the true ranges available until there are period of them.
+ */
+class AtrSeries extends StreamingIndicator {
+    private final int period;
+    private final boolean flex;
+    private final BarCursor cursor;
+
+    private int count;
+    private double prevClose;
+    private double trSum;
+    private double atr;
+
+    AtrSeries(Bars bars, int period, boolean flex) {
+        super(bars);
+        this.period = period;
+        this.flex = flex;
+        this.cursor = bars.cursor();
+    }
+
+    @Override
+    protected double update(int index) {
+        // high, low and close of the same bar
+        cursor.at(index);
+        double high = cursor.getHigh();
+        double low = cursor.getLow();
+        double close = cursor.getClose();
+
+        if (count++ == 0) {
+            // no true range without previous close
+            prevClose = close;
+            return Double.NaN;
+        }
+
+        double tr = high - low;
+        tr = Math.max(tr, Math.abs(prevClose - high));
+        tr = Math.max(tr, Math.abs(low - prevClose));
+        prevClose = close;
+
+        int trCount = count - 1;
+        if (trCount <= period) {
+            trSum += tr;
+            if (trCount == period) {
+                atr = trSum / period;
+                return atr;
+            }
+            return flex ? trSum / trCount : Double.NaN;
+        }
+
+        atr = (atr * (period - 1) + tr) / period;
+        return atr;
+    }
+
+    @Override
+    protected void reset() {
+        count = 0;
+        prevClose = 0;
+        trSum = 0;
+        atr = 0;
+    }
+}
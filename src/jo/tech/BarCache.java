@@ -0,0 +1,84 @@
+package jo.tech;
+
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+import jo.model.Bars;
+
+/*
+ * Value computed once per version of its input, Bars.getSize() for bar indicators, and shared by all threads.
+ *
+ * The result is published as an immutable (version, value) pair through a volatile field, so a reader never sees
+ * a value with the version of another bar. Computations are serialized: concurrent callers for the same version
+ * wait for the first one and share its result. Bars are published complete, compute(version) sees every value of
+ * the first "version" bars. A caller never gets a result older than the version it saw, a newer one may be returned
+ * if it was published meanwhile.
+ */
+public final class BarCache<T> {
+    private final IntSupplier version;
+    private final IntFunction<T> compute;
+    private volatile Versioned<T> last;
+
+    public BarCache(Bars bars, IntFunction<T> compute) {
+        this(bars::getSize, compute);
+    }
+
+    public BarCache(IntSupplier version, IntFunction<T> compute) {
+        this.version = version;
+        this.compute = compute;
+    }
+
+    public T get() {
+        return getVersioned().getValue();
+    }
+
+    public Versioned<T> getVersioned() {
+        int version = this.version.getAsInt();
+        Versioned<T> last = this.last;
+        if (last != null && last.version >= version) {
+            return last;
+        }
+        return compute(version);
+    }
+
+    private synchronized Versioned<T> compute(int version) {
+        Versioned<T> last = this.last;
+        if (last != null && last.version >= version) {
+            return last;
+        }
+
+        last = new Versioned<>(version, compute.apply(version));
+        this.last = last;
+        return last;
+    }
+
+    /*
+     * Drops the result, when the computation itself changed. Waits for a computation in progress.
+     */
+    public synchronized void invalidate() {
+        last = null;
+    }
+
+    public static final class Versioned<T> {
+        private final int version;
+        private final T value;
+
+        private Versioned(int version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return "v" + version + ": " + value;
+        }
+    }
+}
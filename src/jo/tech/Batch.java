@@ -0,0 +1,202 @@
+package jo.tech;
+
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * Whole-series indicators for backtests and charts, where all bars are known upfront: one tight pass over a column
+ * into a primitive array, out[i] is the value for the bar at in[i], NaN where not defined yet. Same values as the
+ * bar by bar indicators (EMA, SMA, ATR, ATRFlex, DonchianChannel, BarsPctChange).
+ *
+ * Bars variants work on the retained bars: out[0] is the bar at bars.getFirstIndex().
+ */
+public final class Batch {
+    private Batch() {
+    }
+
+    public static double[] sma(Bars bars, BarType type, int period) {
+        return sma(bars.getDoubleSeries(type).toArray(), period);
+    }
+
+    public static double[] sma(double[] in, int period) {
+        double[] out = new double[in.length];
+        sma(in, period, out);
+        return out;
+    }
+
+    /*
+     * TA-Lib sma over the whole series (running sum)
+     */
+    public static void sma(double[] in, int period, double[] out) {
+        double sum = 0;
+        for (int i = 0; i < in.length; i++) {
+            sum += in[i];
+            if (i < period - 1) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            out[i] = sum / period;
+            sum -= in[i - period + 1];
+        }
+    }
+
+    public static double[] ema(Bars bars, BarType type, int period) {
+        return ema(bars.getDoubleSeries(type).toArray(), period);
+    }
+
+    public static double[] ema(double[] in, int period) {
+        double[] out = new double[in.length];
+        ema(in, period, out);
+        return out;
+    }
+
+    /*
+     * TA-Lib ema over the whole series, seeded with the SMA of the first period values
+     */
+    public static void ema(double[] in, int period, double[] out) {
+        int seed = Math.min(period, in.length);
+        double sum = 0;
+        for (int i = 0; i < seed; i++) {
+            sum += in[i];
+            out[i] = Double.NaN;
+        }
+        if (seed < period) {
+            return;
+        }
+
+        double k = 2.0 / (period + 1);
+        double ema = sum / period;
+        out[period - 1] = ema;
+        for (int i = period; i < in.length; i++) {
+            ema = ((in[i] - ema) * k) + ema;
+            out[i] = ema;
+        }
+    }
+
+    public static double[] atr(Bars bars, int period) {
+        return atr(bars, period, false);
+    }
+
+    public static double[] atrFlex(Bars bars, int period) {
+        return atr(bars, period, true);
+    }
+
+    private static double[] atr(Bars bars, int period, boolean flex) {
+        // the three columns of the same bars
+        double[][] hlc = bars.read(() -> new double[][] {
+                bars.getHigh().toArray(),
+                bars.getLow().toArray(),
+                bars.getClose().toArray() });
+
+        double[] out = new double[hlc[0].length];
+        atr(hlc[0], hlc[1], hlc[2], period, flex, out);
+        return out;
+    }
+
+    /*
+     * TA-Lib atr over the whole series, Wilder smoothing seeded with the average of the first period true ranges.
+     * Flex averages the true ranges available until there are period of them (see ATRFlex).
+     */
+    public static void atr(double[] high, double[] low, double[] close, int period, boolean flex, double[] out) {
+        int size = high.length;
+        if (size == 0) {
+            return;
+        }
+        out[0] = Double.NaN;
+
+        double trSum = 0;
+        double atr = 0;
+        for (int i = 1; i < size; i++) {
+            double prevClose = close[i - 1];
+            double tr = high[i] - low[i];
+            tr = Math.max(tr, Math.abs(prevClose - high[i]));
+            tr = Math.max(tr, Math.abs(low[i] - prevClose));
+
+            if (i <= period) {
+                trSum += tr;
+                if (i == period) {
+                    atr = trSum / period;
+                    out[i] = atr;
+                } else {
+                    out[i] = flex ? trSum / i : Double.NaN;
+                }
+                continue;
+            }
+
+            atr = (atr * (period - 1) + tr) / period;
+            out[i] = atr;
+        }
+    }
+
+    public static double[] highest(Bars bars, BarType type, int period) {
+        return highest(bars.getDoubleSeries(type).toArray(), period);
+    }
+
+    public static double[] highest(double[] in, int period) {
+        double[] out = new double[in.length];
+        extremum(in, period, true, out);
+        return out;
+    }
+
+    public static double[] lowest(Bars bars, BarType type, int period) {
+        return lowest(bars.getDoubleSeries(type).toArray(), period);
+    }
+
+    public static double[] lowest(double[] in, int period) {
+        double[] out = new double[in.length];
+        extremum(in, period, false, out);
+        return out;
+    }
+
+    /*
+     * Donchian bound: max (or min) of the last period values, monotonic deque of indexes (see RollingExtremum)
+     */
+    public static void extremum(double[] in, int period, boolean max, double[] out) {
+        int[] deque = new int[period];
+        int head = 0;
+        int length = 0;
+
+        for (int i = 0; i < in.length; i++) {
+            if (length > 0 && deque[head] <= i - period) {
+                head = (head + 1) % period;
+                length--;
+            }
+
+            double val = in[i];
+            while (length > 0) {
+                double tail = in[deque[(head + length - 1) % period]];
+                if (max ? tail > val : tail < val) {
+                    break;
+                }
+                length--;
+            }
+            deque[(head + length) % period] = i;
+            length++;
+
+            out[i] = i < period - 1 ? Double.NaN : in[deque[head]];
+        }
+    }
+
+    public static double[] pctChange(Bars bars, BarType type) {
+        return pctChange(bars.getDoubleSeries(type).toArray());
+    }
+
+    public static double[] pctChange(double[] in) {
+        double[] out = new double[in.length];
+        pctChange(in, out);
+        return out;
+    }
+
+    /*
+     * Change from the previous value, as BarsPctChange
+     */
+    public static void pctChange(double[] in, double[] out) {
+        if (in.length == 0) {
+            return;
+        }
+        out[0] = Double.NaN;
+        for (int i = 1; i < in.length; i++) {
+            out[i] = BarsPctChange.of(in[i - 1], in[i]);
+        }
+    }
+}
@@ -6,15 +6,29 @@ import gnu.trove.list.TDoubleList;
 import jo.model.BarType;
 import jo.model.Bars;
 
+/*
+ * Highest upper value and lowest lower value over the last periods. Bars are fed once each to rolling max/min
+ * deques, so a new bar costs amortized O(1) whatever the periods, and shorter periods can be asked for with
+ * get(lowerPeriod, upperPeriod) from the same state.
+ *
+ * If bars not fed yet were evicted from a bounded Bars it starts over from the first retained bar. Thread safe, get()
+ * is computed once per new bar and shared by all callers.
+ */
 public class DonchianChannel {
     private final Bars bars;
     private final TDoubleList upper;
     private final TDoubleList lower;
     private final int upperPeriod;
     private final int lowerPeriod;
-    private Channel channel;
-    private int prevBarSize = -1;
+    private final RollingExtremum upperMax;
+    private final RollingExtremum lowerMin;
+    private final BarCache<Channel> channel;
     private int offset = 0;
+    private int next = -1;
+
+    public DonchianChannel(Bars bars, int lowerPeriod, int upperPeriod) {
+        this(bars, BarType.LOW, BarType.HIGH, lowerPeriod, upperPeriod);
+    }
 
     public DonchianChannel(Bars bars, BarType lowerType, BarType upperType, int lowerPeriod, int upperPeriod) {
         this.bars = bars;
@@ -22,41 +36,74 @@ public class DonchianChannel {
         this.upper = bars.getDoubleSeries(upperType);
         this.lowerPeriod = lowerPeriod;
         this.upperPeriod = upperPeriod;
+        this.lowerMin = RollingExtremum.min(lowerPeriod);
+        this.upperMax = RollingExtremum.max(upperPeriod);
+        this.channel = new BarCache<>(bars, size -> get(size, lowerPeriod, upperPeriod));
     }
 
     public void setOffset(int offset) {
-        this.offset = offset;
+        synchronized (this) {
+            this.offset = offset;
+
+            // bars after the new offset may have been fed already
+            this.next = -1;
+        }
+        channel.invalidate();
     }
 
     @Nullable
     public Channel get() {
-        int barSize = bars.getSize();
+        return channel.get();
+    }
+
+    /*
+     * Channel for other periods, up to the ones given at construction. Null if not enough bars.
+     */
+    @Nullable
+    public Channel get(int lowerPeriod, int upperPeriod) {
+        return get(bars.getSize(), lowerPeriod, upperPeriod);
+    }
+
+    private synchronized Channel get(int barSize, int lowerPeriod, int upperPeriod) {
         if (barSize < upperPeriod + offset || barSize < lowerPeriod + offset) {
             return null;
         }
 
-        // do some caching
-        if (prevBarSize == barSize) {
-            return channel;
-        }
+        advanceTo(barSize - 1 - offset);
 
-        double upperBound = Double.MIN_VALUE;
-        int upperBegin = barSize - upperPeriod - offset;
-        int upperEnd = barSize - offset;
-        for (int i = upperBegin; i < upperEnd; i++) {
-            upperBound = Math.max(upperBound, upper.get(i));
+        double upperBound = upperMax.get(upperPeriod);
+        double lowerBound = lowerMin.get(lowerPeriod);
+        if (Double.isNaN(upperBound) || Double.isNaN(lowerBound)) {
+            return null;
         }
 
-        double lowerBound = Double.MAX_VALUE;
-        int lowerBegin = barSize - lowerPeriod - offset;
-        int lowerEnd = barSize - offset;        
-        for (int i = lowerBegin; i < lowerEnd; i++) {
-            lowerBound = Math.min(lowerBound, lower.get(i));
-        }
+        return new Channel(lowerBound, upperBound);
+    }
+
+    private void advanceTo(int last) {
+        while (next <= last) {
+            if (next < bars.getFirstIndex()) {
+                // first call or not fed bars evicted
+                upperMax.reset();
+                lowerMin.reset();
+                next = bars.getFirstIndex();
+                continue;
+            }
 
-        prevBarSize = barSize;
-        channel = new Channel(lowerBound, upperBound);
+            double upperValue;
+            double lowerValue;
+            try {
+                upperValue = upper.get(next);
+                lowerValue = lower.get(next);
+            } catch (IndexOutOfBoundsException e) {
+                // evicted while reading
+                next = -1;
+                continue;
+            }
 
-        return channel;
+            upperMax.add(upperValue);
+            lowerMin.add(lowerValue);
+            next++;
+        }
     }
 }
@@ -2,55 +2,31 @@ package jo.tech;
 
 import javax.annotation.Nullable;
 
-import com.tictactec.ta.lib.Core;
-import com.tictactec.ta.lib.MInteger;
-import com.tictactec.ta.lib.RetCode;
-
-import jo.collection.TDoubleNakedArrayList;
 import jo.model.BarType;
 import jo.model.Bars;
 
+/*
+ * Exponential moving average at an offset from the last bar, same values as TA-Lib ema over the whole series.
+ * Instances with the same bars, type and period read one shared series, see Indicators.
+ *
+ * The former TA-Lib call ran over the last 4 x period bars, seeded again on every call with a weight of about
+ * e^-6 left to the seed: its values differ from these slightly but for good.
+ */
 public class EMA {
-    private final int period;
-    private final TDoubleNakedArrayList series;
-    private int prevSize = -1;
-    private int offset = 0;
-    private Double value;
-    private Core talib = new Core();
+    private final StreamingIndicator series;
+    private final int offset;
 
     public EMA(Bars bars, BarType type, int period, int offset) {
-        this.series = bars.getDoubleSeries(type);
-        this.period = period;
+        this.series = Indicators.of(bars).ema(type, period);
         this.offset = offset;
     }
 
+    /*
+     * Null if not enough bars
+     */
     @Nullable
     public Double get() {
-        int size = series.size();
-        if (size < period + offset) {
-            return null;
-        }
-
-        // do some caching
-        if (prevSize == size) {
-            return value;
-        }
-
-        int desiredRange = period * 4;
-        int end = size - offset - 1;
-        int start = Math.max(0, end - desiredRange);
-        double[] out = new double[size]; // TODO Find right size
-
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-
-        RetCode retCode = series.executeFunction((arr) -> talib.ema(start, end, arr, period, begin, length, out));
-        if (retCode != RetCode.Success || length.value == 0)
-            return null;
-
-        value = out[length.value - 1];
-        prevSize = size;
-
-        return value;
+        double value = series.get(offset);
+        return Double.isNaN(value) ? null : value;
     }
 }
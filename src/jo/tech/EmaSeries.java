@@ -0,0 +1,50 @@
+package jo.tech;
+
+import gnu.trove.list.TDoubleList;
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * TA-Lib ema over the whole series: seeded with the SMA of the first period values
+ */
+class EmaSeries extends StreamingIndicator {
+    private final int period;
+    private final TDoubleList series;
+    private final double k;
+
+    private int count;
+    private double sum;
+    private double ema;
+
+    EmaSeries(Bars bars, BarType type, int period) {
+        super(bars);
+        this.series = bars.getDoubleSeries(type);
+        this.period = period;
+        this.k = 2.0 / (period + 1);
+    }
+
+    @Override
+    protected double update(int index) {
+        double val = series.get(index);
+        count++;
+
+        if (count <= period) {
+            sum += val;
+            if (count < period) {
+                return Double.NaN;
+            }
+            ema = sum / period;
+            return ema;
+        }
+
+        ema = ((val - ema) * k) + ema;
+        return ema;
+    }
+
+    @Override
+    protected void reset() {
+        count = 0;
+        sum = 0;
+        ema = 0;
+    }
+}
@@ -0,0 +1,57 @@
+package jo.tech;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * Indicator registry of a Bars, one per Bars: of(bars). Identical definitions (indicator, type, parameters) get
+ * the same series, computed once for all their readers and offsets.
+ */
+public class Indicators {
+    private final Bars bars;
+    private final ConcurrentMap<List<Object>, StreamingIndicator> series = new ConcurrentHashMap<>();
+
+    private Indicators(Bars bars) {
+        this.bars = bars;
+    }
+
+    /*
+     * Indicators computed on bars, shared by all readers
+     */
+    public static Indicators of(Bars bars) {
+        return bars.getAttachment(Indicators.class, Indicators::new);
+    }
+
+    public StreamingIndicator ema(BarType type, int period) {
+        return get(() -> new EmaSeries(bars, type, period), "EMA", type, period);
+    }
+
+    public StreamingIndicator sma(BarType type, int period) {
+        return get(() -> new SmaSeries(bars, type, period), "SMA", type, period);
+    }
+
+    public StreamingIndicator atr(int period) {
+        return get(() -> new AtrSeries(bars, period, false), "ATR", period);
+    }
+
+    public StreamingIndicator atrFlex(int period) {
+        return get(() -> new AtrSeries(bars, period, true), "ATRFlex", period);
+    }
+
+    /*
+     * Number of distinct series
+     */
+    public int size() {
+        return series.size();
+    }
+
+    private StreamingIndicator get(Supplier<StreamingIndicator> factory, Object... key) {
+        return series.computeIfAbsent(Arrays.asList(key), k -> factory.get());
+    }
+}
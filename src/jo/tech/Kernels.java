@@ -0,0 +1,117 @@
+package jo.tech;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Column kernels for research jobs over long double[] series (months of 5 sec bars per symbol): rolling sum and
+ * mean, true range, pct change, rolling max and min. Each kernel writes out[i] for in[i], NaN where not defined yet,
+ * out has the length of the input and must not be one of the inputs.
+ *
+ * Two implementations with the same results, up to rounding of the rolling sums:
+ * - SCALAR, the TA-Lib shaped loops of Batch, bit for bit the values of the bar by bar indicators
+ * - VECTOR, loops shaped for the JIT auto-vectorizer: straight element-wise passes without branches or calls in the
+ *   body, short dependency chains, branch free extrema
+ *
+ * get() is picked once at startup with -Djo.kernels=scalar|vector, vector by default.
+ */
+public abstract class Kernels {
+    public static final Kernels SCALAR = new ScalarKernels();
+    public static final Kernels VECTOR = new VectorKernels();
+
+    private static final Kernels DEFAULT = of(System.getProperty("jo.kernels", "vector"));
+
+    public static Kernels get() {
+        return DEFAULT;
+    }
+
+    public static Kernels of(String name) {
+        switch (name) {
+        case "scalar":
+            return SCALAR;
+
+        case "vector":
+            return VECTOR;
+        }
+
+        throw new IllegalArgumentException("Unsupported kernels " + name);
+    }
+
+    /*
+     * Sum of the last period values
+     */
+    public abstract void rollingSum(double[] in, int period, double[] out);
+
+    /*
+     * SMA
+     */
+    public abstract void rollingMean(double[] in, int period, double[] out);
+
+    /*
+     * True range from the second bar, out[0] is NaN
+     */
+    public abstract void trueRange(double[] high, double[] low, double[] close, double[] out);
+
+    /*
+     * Change from the previous value, out[0] is NaN
+     */
+    public abstract void pctChange(double[] in, double[] out);
+
+    /*
+     * Donchian upper bound
+     */
+    public abstract void rollingMax(double[] in, int period, double[] out);
+
+    /*
+     * Donchian lower bound
+     */
+    public abstract void rollingMin(double[] in, int period, double[] out);
+
+    public double[] rollingSum(double[] in, int period) {
+        double[] out = new double[in.length];
+        rollingSum(in, period, out);
+        return out;
+    }
+
+    public double[] rollingMean(double[] in, int period) {
+        double[] out = new double[in.length];
+        rollingMean(in, period, out);
+        return out;
+    }
+
+    public double[] trueRange(double[] high, double[] low, double[] close) {
+        double[] out = new double[high.length];
+        trueRange(high, low, close, out);
+        return out;
+    }
+
+    public double[] pctChange(double[] in) {
+        double[] out = new double[in.length];
+        pctChange(in, out);
+        return out;
+    }
+
+    public double[] rollingMax(double[] in, int period) {
+        double[] out = new double[in.length];
+        rollingMax(in, period, out);
+        return out;
+    }
+
+    public double[] rollingMin(double[] in, int period) {
+        double[] out = new double[in.length];
+        rollingMin(in, period, out);
+        return out;
+    }
+
+    static void checkArgs(double[] in, int period, double[] out) {
+        Preconditions.checkArgument(period > 0, "Period must be positive: %s", period);
+        Preconditions.checkArgument(out.length == in.length, "Output length %s, expected %s", out.length, in.length);
+        Preconditions.checkArgument(out != in, "Output must not be the input");
+    }
+
+    static void checkArgs(double[] high, double[] low, double[] close, double[] out) {
+        Preconditions.checkArgument(low.length == high.length && close.length == high.length,
+                "Columns of different lengths: %s, %s, %s", high.length, low.length, close.length);
+        Preconditions.checkArgument(out.length == high.length, "Output length %s, expected %s", out.length, high.length);
+        Preconditions.checkArgument(out != high && out != low && out != close, "Output must not be an input");
+    }
+}
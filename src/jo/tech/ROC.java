@@ -3,16 +3,18 @@ package jo.tech;
 import javax.annotation.Nullable;
 
 import gnu.trove.list.TDoubleList;
-import gnu.trove.list.array.TDoubleArrayList;
 import jo.model.BarType;
 import jo.model.Bars;
 
+/*
+ * Rate of change in percent over period, at an offset from the last value. Computed once per new value and shared
+ * by the threads calling get().
+ */
 public class ROC {
     private final int period;
     private final TDoubleList series;
-    private int prevSize = -1;
-    private int offset = 0;
-    private Double value;
+    private final int offset;
+    private final BarCache<Double> value;
 
     public ROC(Bars bars, BarType type, int period, int offset) {
         this(bars.getDoubleSeries(type), period, offset);
@@ -22,29 +24,25 @@ public class ROC {
         this.series = series;
         this.period = period;
         this.offset = offset;
+        this.value = new BarCache<>(series::size, this::compute);
     }
 
     @Nullable
     public Double get() {
-        int size = series.size();
+        return value.get();
+    }
+
+    private Double compute(int size) {
         if (size < period + offset + 1) {
             return null;
         }
 
-        // do some caching
-        if (prevSize == size) {
-            return value;
-        }
-
         int lastPriceIdx = size - offset - 1;
         int nPeriodsAgoIdx = lastPriceIdx - period;
 
         double lastPrice = series.get(lastPriceIdx);
         double nPeriodsAgoPrice = series.get(nPeriodsAgoIdx);
 
-        value = (lastPrice - nPeriodsAgoPrice) / nPeriodsAgoPrice * 100d;
-        prevSize = size;
-
-        return value;
+        return (lastPrice - nPeriodsAgoPrice) / nPeriodsAgoPrice * 100d;
     }
 }
@@ -0,0 +1,106 @@
+package jo.tech;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Max (or min) of the last values of a stream, kept in a monotonic deque: add() is amortized O(1) and get() serves
+ * any period up to maxPeriod from the same pass, in O(log maxPeriod).
+ *
+ * The deque holds the values that can still become the extremum of a window: indexes increasing, values strictly
+ * decreasing for max (increasing for min). The extremum of the last "period" values is the first value of the
+ * deque with an index in that window.
+ *
+ * Not thread safe.
+ */
+public class RollingExtremum {
+    private final boolean max;
+    private final int maxPeriod;
+
+    // deque, ring of maxPeriod elements
+    private final long[] indexes;
+    private final double[] values;
+    private int head;
+    private int length;
+
+    private long count;
+
+    private RollingExtremum(boolean max, int maxPeriod) {
+        Preconditions.checkArgument(maxPeriod > 0, "Period must be positive: %s", maxPeriod);
+        this.max = max;
+        this.maxPeriod = maxPeriod;
+        this.indexes = new long[maxPeriod];
+        this.values = new double[maxPeriod];
+    }
+
+    public static RollingExtremum max(int maxPeriod) {
+        return new RollingExtremum(true, maxPeriod);
+    }
+
+    public static RollingExtremum min(int maxPeriod) {
+        return new RollingExtremum(false, maxPeriod);
+    }
+
+    public void add(double value) {
+        // out of the longest window
+        while (length > 0 && indexes[head] <= count - maxPeriod) {
+            head = (head + 1) % maxPeriod;
+            length--;
+        }
+
+        // values that can't be the extremum any more, the new one outlives them
+        while (length > 0 && !beats(values[(head + length - 1) % maxPeriod], value)) {
+            length--;
+        }
+
+        int pos = (head + length) % maxPeriod;
+        indexes[pos] = count;
+        values[pos] = value;
+        length++;
+        count++;
+    }
+
+    private boolean beats(double a, double b) {
+        return max ? a > b : a < b;
+    }
+
+    /*
+     * Extremum of the last period values, NaN if less than period values were added.
+     */
+    public double get(int period) {
+        Preconditions.checkArgument(period > 0 && period <= maxPeriod, "Period %s not in [1, %s]", period, maxPeriod);
+        if (count < period) {
+            return Double.NaN;
+        }
+
+        // first element with index >= count - period, the last one always qualifies
+        long firstIndex = count - period;
+        int lo = 0;
+        int hi = length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (indexes[(head + mid) % maxPeriod] < firstIndex) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return values[(head + lo) % maxPeriod];
+    }
+
+    /*
+     * Number of values added since creation or reset()
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public int getMaxPeriod() {
+        return maxPeriod;
+    }
+
+    public void reset() {
+        head = 0;
+        length = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,113 @@
+package jo.tech;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Percentiles of the last "window" values of a stream. The window is kept sorted next to a ring of the values in
+ * arrival order: add() finds the evicted and the new value by binary search and shifts the values in between, any
+ * percentile is then read in O(1) with no allocation.
+ *
+ * Not thread safe.
+ */
+public class RollingQuantile {
+    private final int window;
+
+    // arrival order
+    private final double[] ring;
+    private int head;
+
+    // same values, sorted
+    private final double[] sorted;
+    private int count;
+
+    public RollingQuantile(int window) {
+        Preconditions.checkArgument(window > 0, "Window must be positive: %s", window);
+        this.window = window;
+        this.ring = new double[window];
+        this.sorted = new double[window];
+    }
+
+    public void add(double value) {
+        Preconditions.checkArgument(!Double.isNaN(value), "NaN value");
+
+        if (count == window) {
+            // replace the oldest value, shifting only the values between the old and the new position
+            double oldest = ring[head];
+            int from = position(oldest);
+            int to = insertionPoint(value);
+
+            if (to > from) {
+                to--;
+                System.arraycopy(sorted, from + 1, sorted, from, to - from);
+            } else if (to < from) {
+                System.arraycopy(sorted, to, sorted, to + 1, from - to);
+            }
+            sorted[to] = value;
+        } else {
+            int to = insertionPoint(value);
+            System.arraycopy(sorted, to, sorted, to + 1, count - to);
+            sorted[to] = value;
+            count++;
+        }
+
+        ring[head] = value;
+        head = (head + 1) % window;
+    }
+
+    /*
+     * Value at position (int) (count * percentile) of the sorted window, the max for percentile 1.0. NaN if empty.
+     */
+    public double get(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 1, "Percentile not in [0, 1]: %s", percentile);
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        int position = Math.min((int) (count * percentile), count - 1);
+        return sorted[position];
+    }
+
+    public double getMin() {
+        return count == 0 ? Double.NaN : sorted[0];
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : sorted[count - 1];
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    private int position(double value) {
+        int i = Arrays.binarySearch(sorted, 0, count, value);
+        assert i >= 0 : "value in window not found: " + value;
+        return i;
+    }
+
+    // first position with a value > value
+    private int insertionPoint(double value) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(sorted[mid], value) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
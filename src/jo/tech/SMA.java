@@ -7,52 +7,29 @@ import com.tictactec.ta.lib.MInteger;
 import com.tictactec.ta.lib.RetCode;
 
 import gnu.trove.list.TDoubleList;
-import jo.collection.TDoubleNakedArrayList;
 import jo.model.BarType;
 import jo.model.Bars;
 
+/*
+ * Simple moving average at an offset from the last bar, same values as TA-Lib sma over the whole series. Instances
+ * with the same bars, type and period read one shared series, see Indicators.
+ */
 public class SMA {
-    private final int period;
-    private final TDoubleNakedArrayList series;
-    private int prevSize = -1;
-    private int offset = 0;
-    private Double value;
-    private Core talib;
+    private final StreamingIndicator series;
+    private final int offset;
 
     public SMA(Bars bars, BarType type, int period, int offset) {
-        this.series = bars.getDoubleSeries(type);
-        this.period = period;
+        this.series = Indicators.of(bars).sma(type, period);
         this.offset = offset;
-        this.talib = new Core();
     }
 
+    /*
+     * Null if not enough bars
+     */
     @Nullable
     public Double get() {
-        int size = series.size();
-        if (size < period + offset) {
-            return null;
-        }
-
-        // do some caching
-        if (prevSize == size) {
-            return value;
-        }
-
-        int end = size - offset - 1;
-
-        double[] out = new double[1];
-        MInteger beginOut = new MInteger();
-        MInteger lengthOut = new MInteger();
-
-        RetCode retCode = series.executeFunction((arr) -> talib.sma(end, end, arr, period, beginOut, lengthOut, out));
-        if (retCode != RetCode.Success) {
-            return null;
-        }
-
-        value = out[0];
-        prevSize = size;
-
-        return value;
+        double value = series.get(offset);
+        return Double.isNaN(value) ? null : value;
     }
 
     public static double of(TDoubleList series) {
@@ -0,0 +1,62 @@
+package jo.tech;
+
+/*
+ * Reference kernels, the loops of Batch
+ */
+final class ScalarKernels extends Kernels {
+
+    @Override
+    public void rollingSum(double[] in, int period, double[] out) {
+        checkArgs(in, period, out);
+        double sum = 0;
+        for (int i = 0; i < in.length; i++) {
+            sum += in[i];
+            if (i < period - 1) {
+                out[i] = Double.NaN;
+                continue;
+            }
+            out[i] = sum;
+            sum -= in[i - period + 1];
+        }
+    }
+
+    @Override
+    public void rollingMean(double[] in, int period, double[] out) {
+        checkArgs(in, period, out);
+        Batch.sma(in, period, out);
+    }
+
+    @Override
+    public void trueRange(double[] high, double[] low, double[] close, double[] out) {
+        checkArgs(high, low, close, out);
+        if (high.length == 0) {
+            return;
+        }
+        out[0] = Double.NaN;
+        for (int i = 1; i < high.length; i++) {
+            double prevClose = close[i - 1];
+            double tr = high[i] - low[i];
+            tr = Math.max(tr, Math.abs(prevClose - high[i]));
+            tr = Math.max(tr, Math.abs(low[i] - prevClose));
+            out[i] = tr;
+        }
+    }
+
+    @Override
+    public void pctChange(double[] in, double[] out) {
+        checkArgs(in, 1, out);
+        Batch.pctChange(in, out);
+    }
+
+    @Override
+    public void rollingMax(double[] in, int period, double[] out) {
+        checkArgs(in, period, out);
+        Batch.extremum(in, period, true, out);
+    }
+
+    @Override
+    public void rollingMin(double[] in, int period, double[] out) {
+        checkArgs(in, period, out);
+        Batch.extremum(in, period, false, out);
+    }
+}
@@ -0,0 +1,101 @@
+package jo.tech;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import jo.model.BarCursor;
+import jo.model.Bars;
+import jo.model.TradeCursor;
+import jo.model.TradeTape;
+
+/*
+ * Session VWAP, VWAP bands and volume profile, fed incrementally from one source: either the trade tape (every
+ * trade at its price) or bars (each bar's volume at its WAP, e.g. 5 sec realtime bars). update() only reads what
+ * was added since the previous call.
+ *
+ * Not thread safe, unlike the Bars-backed indicators: owned by one reader thread. reset() starts a new session.
+ */
+public class SessionVolume {
+    private static final Logger LOG = LogManager.getLogger(SessionVolume.class);
+
+    private final SessionVwap vwap = new SessionVwap();
+    private final VolumeProfile profile;
+
+    private TradeCursor tradeCursor;
+    private long nextSequence;
+    private BarCursor barCursor;
+    private int nextBar;
+
+    public SessionVolume(double tickSize) {
+        this.profile = new VolumeProfile(tickSize);
+    }
+
+    /*
+     * Feeds the trades of tape not seen yet, from the oldest one retained on first call
+     */
+    public void update(TradeTape tape) {
+        if (tradeCursor == null) {
+            tradeCursor = tape.cursor();
+            nextSequence = tape.getFirstSequence();
+        }
+
+        long count = tape.getCount();
+        while (nextSequence < count) {
+            try {
+                tradeCursor.at(nextSequence);
+            } catch (IndexOutOfBoundsException e) {
+                long first = tape.getFirstSequence();
+                LOG.warn("Skipping {} trades evicted from the tape", first - nextSequence);
+                nextSequence = first;
+                continue;
+            }
+            add(tradeCursor.getPrice(), tradeCursor.getSize());
+            nextSequence++;
+        }
+    }
+
+    /*
+     * Feeds the bars not seen yet, from the first one retained on first call
+     */
+    public void update(Bars bars) {
+        if (barCursor == null) {
+            barCursor = bars.cursor();
+            nextBar = bars.getFirstIndex();
+        }
+
+        int size = bars.getSize();
+        while (nextBar < size) {
+            try {
+                barCursor.at(nextBar);
+            } catch (IndexOutOfBoundsException e) {
+                int first = bars.getFirstIndex();
+                LOG.warn("Skipping {} bars evicted", first - nextBar);
+                nextBar = first;
+                continue;
+            }
+            add(barCursor.getWap(), barCursor.getVolume());
+            nextBar++;
+        }
+    }
+
+    public void add(double price, double volume) {
+        vwap.add(price, volume);
+        profile.add(price, volume);
+    }
+
+    public SessionVwap getVwap() {
+        return vwap;
+    }
+
+    public VolumeProfile getProfile() {
+        return profile;
+    }
+
+    /*
+     * New session, the sources keep their position: only what comes next is counted
+     */
+    public void reset() {
+        vwap.clear();
+        profile.clear();
+    }
+}
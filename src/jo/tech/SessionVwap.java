@@ -0,0 +1,61 @@
+package jo.tech;
+
+/*
+ * Volume weighted average price of the session and its volume weighted standard deviation, for VWAP bands. Updated
+ * in O(1) per trade with a weighted Welford recurrence, which doesn't lose precision like sum(p^2 * v) would.
+ *
+ * Not thread safe.
+ */
+public class SessionVwap {
+    private double volume;
+    private double vwap = Double.NaN;
+    // sum of volume * squared deviation from vwap
+    private double m2;
+
+    public void add(double price, double size) {
+        if (size <= 0) {
+            return;
+        }
+
+        if (volume == 0) {
+            volume = size;
+            vwap = price;
+            m2 = 0;
+            return;
+        }
+
+        volume += size;
+        double delta = price - vwap;
+        vwap += delta * size / volume;
+        m2 += size * delta * (price - vwap);
+    }
+
+    /*
+     * NaN before the first trade
+     */
+    public double getVwap() {
+        return vwap;
+    }
+
+    public double getStdDev() {
+        return volume == 0 ? Double.NaN : Math.sqrt(Math.max(m2 / volume, 0));
+    }
+
+    public double getUpperBand(double stdDevs) {
+        return vwap + stdDevs * getStdDev();
+    }
+
+    public double getLowerBand(double stdDevs) {
+        return vwap - stdDevs * getStdDev();
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public void clear() {
+        volume = 0;
+        vwap = Double.NaN;
+        m2 = 0;
+    }
+}
@@ -0,0 +1,48 @@
+package jo.tech;
+
+import gnu.trove.list.TDoubleList;
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * TA-Lib sma over the whole series (running sum)
+ */
+class SmaSeries extends StreamingIndicator {
+    private final int period;
+    private final TDoubleList series;
+
+    // last period values
+    private final double[] window;
+    private int count;
+    private double sum;
+
+    SmaSeries(Bars bars, BarType type, int period) {
+        super(bars);
+        this.series = bars.getDoubleSeries(type);
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    @Override
+    protected double update(int index) {
+        double val = series.get(index);
+        window[count % period] = val;
+        count++;
+        sum += val;
+
+        if (count < period) {
+            return Double.NaN;
+        }
+
+        double sma = sum / period;
+        // oldest value leaves the window
+        sum -= window[count % period];
+        return sma;
+    }
+
+    @Override
+    protected void reset() {
+        count = 0;
+        sum = 0;
+    }
+}
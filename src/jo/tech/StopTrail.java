@@ -14,7 +14,7 @@ import com.ib.client.Types.Action;
 import jo.controller.IBroker;
 import jo.model.MarketData;
 import jo.util.AsyncExec;
-import jo.util.SyncSignal;
+import jo.util.Subscription;
 
 public class StopTrail {
     private static final Logger log = LogManager.getLogger(StopTrail.class);
@@ -54,10 +54,11 @@ public class StopTrail {
 
     private void run() {
         log.info("Run");
-        SyncSignal signal = md.getSignal();
+        // last price moves on LAST ticks and trades
+        Subscription subscription = new Subscription(md.getQuoteSequencer(), md.getTradeSequencer());
         double prevPrice = 0;
 
-        while (!stop && signal.waitForSignal() && !stop) {
+        while (!stop && subscription.await() && !stop) {
             double price = md.getLastPrice();
             if (prevPrice == price)
                 continue;
@@ -67,6 +68,7 @@ public class StopTrail {
 
             prevPrice = price;
         }
+        subscription.close();
 
         log.info("Exit");
     }
@@ -0,0 +1,131 @@
+package jo.tech;
+
+import java.util.Arrays;
+
+import jo.model.Bars;
+
+/*
+ * Indicator series computed incrementally: bars are fed once each, in order, to update() which keeps the recursive
+ * state (running sum, previous average...), so a new bar costs O(1) however long the session is. Bars are fed
+ * lazily, when a value is asked for.
+ *
+ * Every value is kept, as long as its bar is retained by the Bars, so any offset is a lookup. Instances are shared
+ * through the Bars' Indicators registry: bars are fed under the instance lock, once whatever the number of threads
+ * reading, and bars can be appended concurrently. The value of the last bar fed is also published as an immutable
+ * (index, value) pair, so get(0) once the new bar is fed doesn't lock. If bars not fed yet were evicted from a
+ * bounded Bars meanwhile, it starts over from the first retained bar.
+ *
+ * Values are those of the recursion over the whole series, not of TA-Lib rerun on a trailing window as the
+ * indicators used to be: EMA and ATR values changed permanently with the switch, see there.
+ */
+public abstract class StreamingIndicator {
+    private static final int INITIAL_CAPACITY = 256;
+
+    protected final Bars bars;
+
+    // values of bars [base, next)
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int base;
+    private int next = -1;
+    private volatile Last latest;
+
+    protected StreamingIndicator(Bars bars) {
+        this.bars = bars;
+    }
+
+    /*
+     * Value for the bar at offset from the last bar, NaN if not available (not enough bars yet, or bar evicted).
+     */
+    public double get(int offset) {
+        int index = bars.getSize() - 1 - offset;
+        Last latest = this.latest;
+        if (latest != null && latest.index == index) {
+            return latest.value;
+        }
+        return valueAt(index);
+    }
+
+    /*
+     * Value for the bar at index, see get(int)
+     */
+    public synchronized double valueAt(int index) {
+        if (index < 0) {
+            return Double.NaN;
+        }
+
+        advanceTo(Math.min(index, bars.getSize() - 1));
+
+        if (index >= next || index < base) {
+            return Double.NaN;
+        }
+        return values[index - base];
+    }
+
+    private void advanceTo(int last) {
+        while (next <= last) {
+            if (next < bars.getFirstIndex()) {
+                // first call or not fed bars evicted
+                reset();
+                next = bars.getFirstIndex();
+                base = next;
+                continue;
+            }
+
+            double value;
+            try {
+                value = update(next);
+            } catch (IndexOutOfBoundsException e) {
+                // evicted while reading
+                next = -1;
+                continue;
+            }
+
+            if (next - base == values.length) {
+                makeRoom();
+            }
+            values[next - base] = value;
+            next++;
+        }
+
+        int lastFed = next - 1;
+        Last latest = this.latest;
+        if (lastFed >= base && (latest == null || latest.index != lastFed)) {
+            this.latest = new Last(lastFed, values[lastFed - base]);
+        }
+    }
+
+    private void makeRoom() {
+        // values of evicted bars go first, grow only if that is not enough
+        int evicted = bars.getFirstIndex() - base;
+        if (evicted >= values.length / 2) {
+            System.arraycopy(values, evicted, values, 0, values.length - evicted);
+            base += evicted;
+        } else {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+    }
+
+    public Bars getBars() {
+        return bars;
+    }
+
+    /*
+     * Feeds bar index, called for consecutive indexes after reset(). Returns the value for that bar or NaN.
+     */
+    protected abstract double update(int index);
+
+    /*
+     * Forgets the state, the next bar fed won't follow the previous one
+     */
+    protected abstract void reset();
+
+    private static final class Last {
+        private final int index;
+        private final double value;
+
+        private Last(int index, double value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package jo.tech;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Volume traded at each price of the session, in buckets of tickSize kept in a primitive array that grows to the
+ * session range. The point of control (bucket with the most volume) is maintained in O(1) on every add(). The value
+ * area (buckets around it holding valueAreaPct of the volume) is computed lazily: the first query after an add()
+ * expands from the point of control, O(session range in ticks), and the result is cached until the next add().
+ * Querying it per trade therefore costs a pass over the range per trade; query it per bar or on demand.
+ *
+ * Not thread safe.
+ */
+public class VolumeProfile {
+    public static final double DEFAULT_VALUE_AREA_PCT = 0.7;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final double tickSize;
+    private final double valueAreaPct;
+
+    // volumes[i] is the volume of bucket baseBucket + i
+    private double[] volumes = new double[INITIAL_BUCKETS];
+    private long baseBucket;
+    private long lowBucket;
+    private long highBucket;
+    private double totalVolume;
+    private long pocBucket;
+
+    // value area, valid while valueAreaVersion == version
+    private long version;
+    private long valueAreaVersion = -1;
+    private long valueAreaLow;
+    private long valueAreaHigh;
+
+    public VolumeProfile(double tickSize) {
+        this(tickSize, DEFAULT_VALUE_AREA_PCT);
+    }
+
+    public VolumeProfile(double tickSize, double valueAreaPct) {
+        Preconditions.checkArgument(tickSize > 0, "Tick size must be positive: %s", tickSize);
+        Preconditions.checkArgument(valueAreaPct > 0 && valueAreaPct <= 1, "Value area not in (0, 1]: %s", valueAreaPct);
+        this.tickSize = tickSize;
+        this.valueAreaPct = valueAreaPct;
+    }
+
+    public void add(double price, double volume) {
+        if (volume <= 0) {
+            return;
+        }
+
+        long bucket = toBucket(price);
+        if (totalVolume == 0) {
+            baseBucket = bucket - volumes.length / 2;
+            lowBucket = bucket;
+            highBucket = bucket;
+            pocBucket = bucket;
+        } else {
+            ensureRange(bucket);
+            lowBucket = Math.min(lowBucket, bucket);
+            highBucket = Math.max(highBucket, bucket);
+        }
+
+        int i = (int) (bucket - baseBucket);
+        volumes[i] += volume;
+        totalVolume += volume;
+
+        // volumes only grow, the new max can only be this bucket
+        if (volumes[i] > volumes[(int) (pocBucket - baseBucket)]) {
+            pocBucket = bucket;
+        }
+        version++;
+    }
+
+    private void ensureRange(long bucket) {
+        long from = Math.min(bucket, lowBucket);
+        long to = Math.max(bucket, highBucket);
+        if (from >= baseBucket && to < baseBucket + volumes.length) {
+            return;
+        }
+
+        // room on both sides for the range to keep extending
+        int length = volumes.length;
+        while (to - from + 1 > length / 2) {
+            length *= 2;
+        }
+        long newBase = from - (length - (to - from + 1)) / 2;
+
+        double[] newVolumes = new double[length];
+        System.arraycopy(volumes, (int) (lowBucket - baseBucket), newVolumes, (int) (lowBucket - newBase),
+                (int) (highBucket - lowBucket + 1));
+        volumes = newVolumes;
+        baseBucket = newBase;
+    }
+
+    private long toBucket(double price) {
+        return Math.round(price / tickSize);
+    }
+
+    private double toPrice(long bucket) {
+        return bucket * tickSize;
+    }
+
+    /*
+     * Volume traded in the bucket of price
+     */
+    public double getVolume(double price) {
+        long bucket = toBucket(price);
+        if (totalVolume == 0 || bucket < lowBucket || bucket > highBucket) {
+            return 0;
+        }
+        return volumes[(int) (bucket - baseBucket)];
+    }
+
+    /*
+     * Price with the most volume, NaN if empty. Ties keep the price reached first.
+     */
+    public double getPointOfControl() {
+        return totalVolume == 0 ? Double.NaN : toPrice(pocBucket);
+    }
+
+    public double getValueAreaLow() {
+        if (totalVolume == 0) {
+            return Double.NaN;
+        }
+        updateValueArea();
+        return toPrice(valueAreaLow);
+    }
+
+    public double getValueAreaHigh() {
+        if (totalVolume == 0) {
+            return Double.NaN;
+        }
+        updateValueArea();
+        return toPrice(valueAreaHigh);
+    }
+
+    /*
+     * Usual expansion from the point of control: add the side with the larger next bucket until the value area
+     * holds valueAreaPct of the volume.
+     */
+    private void updateValueArea() {
+        if (valueAreaVersion == version) {
+            return;
+        }
+
+        int low = (int) (pocBucket - baseBucket);
+        int high = low;
+        int min = (int) (lowBucket - baseBucket);
+        int max = (int) (highBucket - baseBucket);
+        double target = totalVolume * valueAreaPct;
+        double volume = volumes[low];
+
+        while (volume < target && (low > min || high < max)) {
+            double below = low > min ? volumes[low - 1] : -1;
+            double above = high < max ? volumes[high + 1] : -1;
+            if (above >= below) {
+                volume += volumes[++high];
+            } else {
+                volume += volumes[--low];
+            }
+        }
+
+        valueAreaLow = baseBucket + low;
+        valueAreaHigh = baseBucket + high;
+        valueAreaVersion = version;
+    }
+
+    public double getLowPrice() {
+        return totalVolume == 0 ? Double.NaN : toPrice(lowBucket);
+    }
+
+    public double getHighPrice() {
+        return totalVolume == 0 ? Double.NaN : toPrice(highBucket);
+    }
+
+    public double getTotalVolume() {
+        return totalVolume;
+    }
+
+    public double getTickSize() {
+        return tickSize;
+    }
+
+    public void clear() {
+        Arrays.fill(volumes, 0);
+        totalVolume = 0;
+        version++;
+    }
+}
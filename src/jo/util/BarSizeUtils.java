@@ -7,6 +7,10 @@ import com.ib.client.Types.BarSize;
 public class BarSizeUtils {
     public static final BarSize REALTIME_BAR_SIZE = BarSize._5_secs;
 
+    // bounded Bars keep at least this much history, but never less than MIN_BARS_CAPACITY bars
+    public static final long BARS_HISTORY_SECONDS = TimeUnit.HOURS.toSeconds(8);
+    public static final int MIN_BARS_CAPACITY = 512;
+
     // getRatio(BarSize._1_min, BarSize._5_secs) -> 1_min / 5_secs
     public static int getRatio(BarSize from, BarSize to) {
         long fromSec = getInSeconds(from);
@@ -19,6 +23,12 @@ public class BarSizeUtils {
         return (int) (fromSec / toSec);
     }
 
+    // getDefaultCapacity(BarSize._5_secs) -> 5760, 8 hours of 5 sec bars
+    public static int getDefaultCapacity(BarSize barSize) {
+        long capacity = BARS_HISTORY_SECONDS / getInSeconds(barSize);
+        return (int) Math.max(MIN_BARS_CAPACITY, capacity);
+    }
+
     public static long getInSeconds(BarSize barSize) {
         String[] split = barSize.name().split("\\_");
         int duration = Integer.parseInt(split[1]);
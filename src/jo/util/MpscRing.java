@@ -0,0 +1,313 @@
+package jo.util;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+/*
+ * Bounded multi-producer single-consumer ring. offer() never throws nor takes a lock: producers claim a slot with a
+ * CAS on the tail and publish it through the slot sequence (Vyukov bounded queue), the consumer frees it the same
+ * way. When full, the OverflowPolicy decides: wait, drop and count, or conflate.
+ *
+ * Conflation keeps the latest event per key (ToIntFunction, 0 to keys - 1, -1 for no key) in a slot beside the
+ * ring. The consumer takes those slots only once it has emptied the ring, and a producer keeps conflating into a
+ * key while its slot is taken: the order of the events of one key is kept, the order across keys is not while
+ * conflating.
+ *
+ * The consumer waits in await(), producers unpark it after publishing, as Subscription. A consumer of several rings
+ * gives them a Sequencer instead and waits on its Subscription.
+ *
+ * Once the consumer is gone it close()s the ring: producers then drop and count, a producer blocked on a full ring
+ * returns, nothing piles up.
+ */
+public class MpscRing<E> {
+    private static final int SPINS = 100;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final OverflowPolicy policy;
+    private final ToIntFunction<? super E> key;
+    private final AtomicReferenceArray<E> latest;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    private final Sequencer sequencer;
+    private volatile Thread waiter;
+    private volatile boolean closed;
+
+    public MpscRing(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, e -> -1, 0, null);
+    }
+
+    public MpscRing(int capacity, OverflowPolicy policy, ToIntFunction<? super E> key, int keys) {
+        this(capacity, policy, key, keys, null);
+    }
+
+    /*
+     * capacity is rounded up to a power of two. Each event offered is published to sequencer, if any.
+     */
+    public MpscRing(int capacity, OverflowPolicy policy, ToIntFunction<? super E> key, int keys,
+            @Nullable Sequencer sequencer) {
+        Preconditions.checkArgument(capacity > 0 && capacity <= 1 << 30, "Capacity %s", capacity);
+        this.capacity = roundUp(capacity);
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+
+        this.policy = policy;
+        this.key = key;
+        this.latest = new AtomicReferenceArray<>(keys);
+        this.sequencer = sequencer;
+    }
+
+    private static int roundUp(int capacity) {
+        int c = Integer.highestOneBit(capacity);
+        return c == capacity ? c : c << 1;
+    }
+
+    /*
+     * Producers. False if the event was dropped.
+     */
+    public boolean offer(E e) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+
+        int k = -1;
+        if (policy == OverflowPolicy.CONFLATE) {
+            k = key.applyAsInt(e);
+            if (k >= 0 && latest.get(k) != null) {
+                conflate(k, e);
+                return true;
+            }
+        }
+
+        if (tryPublish(e)) {
+            return true;
+        }
+
+        switch (policy) {
+        case BLOCK:
+            blocked.increment();
+            for (int spins = 0; !tryPublish(e); spins++) {
+                if (closed) {
+                    dropped.increment();
+                    return false;
+                } else if (spins < SPINS) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                }
+            }
+            return true;
+
+        case CONFLATE:
+            if (k >= 0) {
+                conflate(k, e);
+                return true;
+            }
+            dropped.increment();
+            return false;
+
+        default:
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private boolean tryPublish(E e) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long seq = sequences.get(index);
+            if (seq == pos) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.lazySet(index, e);
+                    // volatile, ordered before the read of waiter
+                    sequences.set(index, pos + 1);
+                    wakeUp();
+                    return true;
+                }
+            } else if (seq < pos) {
+                // the slot of the previous round is not consumed yet
+                return false;
+            }
+            // another producer claimed pos
+        }
+    }
+
+    private void conflate(int k, E e) {
+        if (latest.getAndSet(k, e) == null) {
+            pending.incrementAndGet();
+        } else {
+            conflated.increment();
+        }
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        Thread waiter = this.waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+        if (sequencer != null) {
+            sequencer.publish();
+        }
+    }
+
+    /*
+     * Consumer. Moves up to max events to out, the ring first, then the conflated ones if the ring was emptied.
+     */
+    public int drainTo(Collection<? super E> out, int max) {
+        long head = this.head.get();
+        int n = 0;
+        while (n < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            out.add(buffer.get(index));
+            buffer.lazySet(index, null);
+            sequences.lazySet(index, head + capacity);
+            head++;
+            n++;
+        }
+        this.head.lazySet(head);
+
+        if (n < max && pending.get() > 0) {
+            for (int k = 0; k < latest.length() && n < max; k++) {
+                if (latest.get(k) != null) {
+                    E e = latest.getAndSet(k, null);
+                    if (e != null) {
+                        pending.decrementAndGet();
+                        out.add(e);
+                        n++;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    /*
+     * Consumer. Waits until there is an event, at most nanos. False on timeout.
+     */
+    public boolean await(long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        waiter = Thread.currentThread();
+        try {
+            while (isEmpty()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, left);
+            }
+            return true;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /*
+     * Consumer. Waits until there is an event.
+     */
+    public void await() throws InterruptedException {
+        waiter = Thread.currentThread();
+        try {
+            while (isEmpty()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.park(this);
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /*
+     * Consumer, done with the ring. The events offered after are dropped.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private boolean isEmpty() {
+        long head = this.head.get();
+        return sequences.get((int) head & mask) != head + 1 && pending.get() == 0;
+    }
+
+    /*
+     * Events waiting, ring and conflation slots
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity)) + pending.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /*
+     * Events lost, ring full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /*
+     * Events replaced by a later one of the same key, ring full
+     */
+    public long getConflated() {
+        return conflated.sum();
+    }
+
+    /*
+     * Times a producer had to wait, ring full
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, size %d/%d, dropped %d, conflated %d, blocked %d%s",
+                policy, size(), capacity, getDropped(), getConflated(), getBlocked(), closed ? ", closed" : "");
+    }
+}
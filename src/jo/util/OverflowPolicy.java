@@ -0,0 +1,36 @@
+package jo.util;
+
+/*
+ * What an MpscRing producer does when the ring is full
+ */
+public enum OverflowPolicy {
+    /*
+     * Waits for space, spinning then parking, without a lock. Nothing lost, but the producer thread stalls.
+     */
+    BLOCK,
+
+    /*
+     * Drops the event and counts it
+     */
+    DROP_NEWEST,
+
+    /*
+     * Keeps only the latest event per key until the consumer catches up, events without a key are dropped
+     */
+    CONFLATE;
+
+    public static OverflowPolicy of(String name) {
+        switch (name) {
+        case "block":
+            return BLOCK;
+
+        case "drop":
+            return DROP_NEWEST;
+
+        case "conflate":
+            return CONFLATE;
+        }
+
+        throw new IllegalArgumentException("Unsupported overflow policy " + name);
+    }
+}
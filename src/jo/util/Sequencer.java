@@ -0,0 +1,63 @@
+package jo.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Counts the events of one kind: quote changes, trades, bar closes of one bar size... The producer calls publish()
+ * once the event data is visible, consumers wait for it through a Subscription.
+ *
+ * publish() only wakes the subscriptions of this sequencer, and only the ones actually waiting. It doesn't take
+ * a monitor nor allocate.
+ */
+public class Sequencer {
+    private static final Subscription[] NONE = {};
+
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Subscription[] subscriptions = NONE;
+    private volatile boolean stopped;
+
+    public long publish() {
+        long seq = sequence.incrementAndGet();
+        Subscription[] subscriptions = this.subscriptions;
+        for (int i = 0; i < subscriptions.length; i++) {
+            subscriptions[i].wakeUp();
+        }
+        return seq;
+    }
+
+    /*
+     * Number of events published so far
+     */
+    public long get() {
+        return sequence.get();
+    }
+
+    /*
+     * No more events, subscriptions return false from await()
+     */
+    public void stop() {
+        stopped = true;
+        Subscription[] subscriptions = this.subscriptions;
+        for (int i = 0; i < subscriptions.length; i++) {
+            subscriptions[i].wakeUp();
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    synchronized void register(Subscription subscription) {
+        Subscription[] copy = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        copy[subscriptions.length] = subscription;
+        subscriptions = copy;
+    }
+
+    synchronized void unregister(Subscription subscription) {
+        Subscription[] copy = Arrays.stream(subscriptions)
+                .filter(s -> s != subscription)
+                .toArray(Subscription[]::new);
+        subscriptions = copy.length == 0 ? NONE : copy;
+    }
+}
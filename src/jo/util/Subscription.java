@@ -0,0 +1,135 @@
+package jo.util;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Waits for the events of one or more sequencers.
+ *
+ * The subscription remembers the last sequence it has seen of each sequencer: an event published while the consumer
+ * was busy is not lost, await() returns right away the next time, and a burst of events is handled once instead of
+ * once per event.
+ *
+ * A subscription has one consumer thread. Interrupting it makes await() return false.
+ */
+public class Subscription implements AutoCloseable {
+    private final Sequencer[] sequencers;
+    private final long[] seen;
+    private final boolean[] updated;
+    private volatile Thread waiter;
+    private volatile boolean stopped;
+
+    public Subscription(Sequencer... sequencers) {
+        this.sequencers = sequencers.clone();
+        this.seen = new long[sequencers.length];
+        this.updated = new boolean[sequencers.length];
+
+        for (int i = 0; i < sequencers.length; i++) {
+            seen[i] = sequencers[i].get();
+            sequencers[i].register(this);
+        }
+    }
+
+    /*
+     * Blocks until any of the sequencers published an event not seen yet. Returns false if the subscription or a
+     * sequencer was stopped, or the thread interrupted.
+     */
+    public boolean await() {
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                if (isStopped() || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                if (poll()) {
+                    return true;
+                }
+                LockSupport.park(this);
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /*
+     * await() for at most nanos, false on timeout too
+     */
+    public boolean await(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                if (isStopped() || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                if (poll()) {
+                    return true;
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, left);
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /*
+     * Non-blocking await(), true if there are events not seen yet
+     */
+    public boolean poll() {
+        boolean any = false;
+        for (int i = 0; i < sequencers.length; i++) {
+            long seq = sequencers[i].get();
+            updated[i] = seq != seen[i];
+            seen[i] = seq;
+            any |= updated[i];
+        }
+        return any;
+    }
+
+    /*
+     * Whether the last await() or poll() saw new events of sequencer
+     */
+    public boolean isUpdated(Sequencer sequencer) {
+        for (int i = 0; i < sequencers.length; i++) {
+            if (sequencers[i] == sequencer) {
+                return updated[i];
+            }
+        }
+        throw new IllegalArgumentException("Not subscribed to " + sequencer);
+    }
+
+    public void stop() {
+        stopped = true;
+        wakeUp();
+    }
+
+    public boolean isStopped() {
+        if (stopped) {
+            return true;
+        }
+        for (int i = 0; i < sequencers.length; i++) {
+            if (sequencers[i].isStopped()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void wakeUp() {
+        Thread waiter = this.waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        for (int i = 0; i < sequencers.length; i++) {
+            sequencers[i].unregister(this);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package jo.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import jo.collection.TDoubleNakedArrayList;
+
+/*
+ * One writer appends bars as fast as it can while readers check that every value they see belongs to the bar
+ * at its index. Every field of bar i is i, so a torn or stale read shows up as a mismatch.
+ */
+public class BarsConcurrencyTest {
+    private static final int BARS = 1_000_000;
+    private static final int READERS = 4;
+
+    @Test
+    public void testNoTornReadsUnbounded() throws Exception {
+        runStress(new Bars());
+    }
+
+    @Test
+    public void testNoTornReadsBounded() throws Exception {
+        // small capacity to compact the columns all the time
+        runStress(new Bars(64));
+    }
+
+    private void runStress(Bars bars) throws Exception {
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong reads = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < BARS; i++) {
+                bars.addBar(barOf(i));
+            }
+        }, "Writer");
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    read(bars, writer, failure, reads);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e.toString());
+                }
+            }, "Reader#" + r));
+        }
+
+        readers.forEach(Thread::start);
+        writer.start();
+
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(BARS, bars.getSize());
+        assertTrue("Readers did not run", reads.get() > 0);
+    }
+
+    private void read(Bars bars, Thread writer, AtomicReference<String> failure, AtomicLong reads) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        TDoubleNakedArrayList close = bars.getDoubleSeries(BarType.CLOSE);
+        BarCursor cursor = bars.cursor();
+
+        while ((writer.isAlive() || bars.getSize() < BARS) && failure.get() == null) {
+            if (bars.getSize() < 16) {
+                continue;
+            }
+
+            // whole bar
+            Bar last = bars.getLastBar();
+            check(failure, last, (int) last.getTime());
+
+            // flyweight
+            cursor.fromEnd(rnd.nextInt(8));
+            check(failure, cursor.toBar(), cursor.getIndex());
+
+            // single value by shift
+            int size = bars.getSize();
+            int shift = rnd.nextInt(8);
+            double value = bars.getLastBar(BarType.HIGH, shift);
+            if (value < size - 1 - shift) {
+                failure.compareAndSet(null, "Stale value " + value + " for size " + size + " shift " + shift);
+            }
+
+            // raw array, as TA-Lib reads it
+            int end = close.size() - 1;
+            double sum = close.executeFunction((arr, base) -> {
+                if (end - 7 < base) {
+                    return Double.NaN; // evicted meanwhile
+                }
+                double s = 0;
+                for (int i = end - 7; i <= end; i++) {
+                    s += arr[i - base];
+                }
+                return s;
+            });
+            double expected = 8.0 * end - 28.0;
+            if (!Double.isNaN(sum) && sum != expected) {
+                failure.compareAndSet(null, "Torn array read: sum " + sum + " expected " + expected);
+            }
+
+            // consistent multi column read
+            double spread = bars.read(() -> bars.getLastBar(BarType.HIGH, 0) - bars.getLastBar(BarType.WAP, 0));
+            if (spread != 0) {
+                failure.compareAndSet(null, "Inconsistent read: high - wap = " + spread);
+            }
+
+            reads.incrementAndGet();
+        }
+    }
+
+    private static Bar barOf(int i) {
+        return new Bar(i, i, i, i, i, i, i, i);
+    }
+
+    private static void check(AtomicReference<String> failure, Bar bar, int i) {
+        if (bar.getTime() != i || bar.getHigh() != i || bar.getLow() != i || bar.getOpen() != i
+                || bar.getClose() != i || bar.getWap() != i || bar.getVolume() != i || bar.getCount() != i) {
+            failure.compareAndSet(null, "Torn bar " + i + ": " + bar.getTime() + " " + bar.getHigh() + " " + bar.getLow() + " "
+                    + bar.getOpen() + " " + bar.getClose() + " " + bar.getWap() + " " + bar.getVolume() + " " + bar.getCount());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package jo.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.ib.client.Types.BarSize;
+
+import jo.util.BarSizeUtils;
+
+public class MarketDataTest {
+    // on a 1 min boundary
+    private static final long T0 = 1_525_859_520L;
+
+    @Test
+    public void testBarSizeRequestedMidSession() {
+        List<Bar> realtime = realtimeBars(T0, 1000);
+        MarketData early = new MarketData();
+        MarketData late = new MarketData();
+        Bars earlyBars = early.getBars(BarSize._1_min);
+
+        // mid-bucket
+        int requestedAt = 555;
+        for (int i = 0; i < realtime.size(); i++) {
+            if (i == requestedAt) {
+                late.getBars(BarSize._1_min);
+            }
+            early.realtimeBar(realtime.get(i));
+            late.realtimeBar(realtime.get(i));
+
+            if (i == requestedAt) {
+                assertSameForming(early, late, BarSize._1_min);
+            }
+        }
+
+        Bars lateBars = late.getBars(BarSize._1_min);
+        assertEquals(1000 / 12, earlyBars.getSize());
+        assertEquals(earlyBars.getSize(), lateBars.getSize());
+        for (int i = 0; i < earlyBars.getSize(); i++) {
+            assertBar(earlyBars.get(i), lateBars.get(i));
+        }
+        assertSameForming(early, late, BarSize._1_min);
+    }
+
+    @Test
+    public void testBackfillFromBoundedRealtimeBars() {
+        int capacity = BarSizeUtils.getDefaultCapacity(BarSizeUtils.REALTIME_BAR_SIZE);
+        // evicted by whole windows of capacity bars: started mid-bucket, the first one retained is mid-bucket too
+        List<Bar> realtime = realtimeBars(T0 + 25, capacity * 2 + 7);
+        MarketData early = new MarketData();
+        MarketData late = new MarketData();
+        Bars earlyBars = early.getBars(BarSize._1_min);
+
+        for (Bar bar : realtime) {
+            early.realtimeBar(bar);
+            late.realtimeBar(bar);
+        }
+        Bars retained = late.getBars(BarSizeUtils.REALTIME_BAR_SIZE);
+        assertTrue("evicted " + retained.getFirstIndex(), retained.getFirstIndex() > 0);
+
+        Bars lateBars = late.getBars(BarSize._1_min);
+
+        // first bar: the bucket of the first retained realtime bar, from the retained ones only
+        int first = retained.getFirstIndex();
+        long bucket = realtime.get(first).getTime() / 60 * 60;
+        assertTrue(realtime.get(first).getTime() > bucket);
+        int end = first;
+        long volume = 0;
+        while (realtime.get(end).getTime() < bucket + 60) {
+            volume += realtime.get(end++).getVolume();
+        }
+        Bar firstBar = lateBars.get(lateBars.getFirstIndex());
+        assertEquals(bucket, firstBar.getTime());
+        assertEquals(realtime.get(first).getOpen(), firstBar.getOpen(), 0);
+        assertEquals(realtime.get(end - 1).getClose(), firstBar.getClose(), 0);
+        assertEquals(volume, firstBar.getVolume());
+
+        // then the same as aggregated from the start
+        int offset = (int) ((bucket - T0) / 60);
+        assertEquals(earlyBars.getSize() - offset, lateBars.getSize());
+        for (int i = 1; i < lateBars.getSize(); i++) {
+            assertBar(earlyBars.get(offset + i), lateBars.get(i));
+        }
+        assertSameForming(early, late, BarSize._1_min);
+    }
+
+    @Test
+    public void testConcurrentFirstRequests() throws Exception {
+        MarketData md = new MarketData();
+        List<Bar> realtime = realtimeBars(T0, 100);
+        for (Bar bar : realtime.subList(0, 50)) {
+            md.realtimeBar(bar);
+        }
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Bars[] results = new Bars[threads];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    results[index] = md.getBars(BarSize._2_mins);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : started) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        for (Bars bars : results) {
+            assertSame(results[0], bars);
+        }
+
+        // one aggregator: each bucket once
+        for (Bar bar : realtime.subList(50, 100)) {
+            md.realtimeBar(bar);
+        }
+        assertEquals(100 / 24, results[0].getSize());
+        for (int i = 0; i < results[0].getSize(); i++) {
+            assertEquals(T0 + i * 120, results[0].get(i).getTime());
+        }
+    }
+
+    private static List<Bar> realtimeBars(long start, int count) {
+        Random random = new Random(42);
+        List<Bar> bars = new ArrayList<>();
+        double price = 100;
+        for (int i = 0; i < count; i++) {
+            double open = price;
+            price += random.nextGaussian() * 0.1;
+            double high = Math.max(open, price) + random.nextDouble() * 0.05;
+            double low = Math.min(open, price) - random.nextDouble() * 0.05;
+            bars.add(new Bar(start + i * 5, high, low, open, price, (high + low) / 2, 100 + random.nextInt(500), 1 + i % 3));
+        }
+        return bars;
+    }
+
+    private static void assertSameForming(MarketData expected, MarketData actual, BarSize barSize) {
+        Bar expectedBar = new Bar();
+        Bar actualBar = new Bar();
+        assertEquals(expected.getFormingBar(barSize, expectedBar), actual.getFormingBar(barSize, actualBar));
+        assertBar(expectedBar, actualBar);
+    }
+
+    private static void assertBar(Bar expected, Bar actual) {
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getOpen(), actual.getOpen(), 1e-9);
+        assertEquals(expected.getHigh(), actual.getHigh(), 1e-9);
+        assertEquals(expected.getLow(), actual.getLow(), 1e-9);
+        assertEquals(expected.getClose(), actual.getClose(), 1e-9);
+        assertEquals(expected.getWap(), actual.getWap(), 1e-9);
+        assertEquals(expected.getVolume(), actual.getVolume());
+        assertEquals(expected.getCount(), actual.getCount());
+    }
+}
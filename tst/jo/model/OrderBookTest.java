@@ -0,0 +1,65 @@
+package jo.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+public class OrderBookTest {
+    private final OrderBook book = new OrderBook(3);
+
+    @Test
+    public void testInsertUpdateDelete() {
+        assertTrue(Double.isNaN(book.getBestBidPrice()));
+
+        book.update(0, DeepType.INSERT, DeepSide.BUY, 10.00, 100);
+        book.update(0, DeepType.INSERT, DeepSide.BUY, 10.01, 200); // shifts 10.00 down
+        book.update(2, DeepType.INSERT, DeepSide.BUY, 9.99, 300);
+        book.update(0, DeepType.INSERT, DeepSide.SELL, 10.02, 50);
+
+        assertEquals(10.01, book.getBestBidPrice(), 0);
+        assertEquals(200, book.getBestBidSize());
+        assertEquals(10.00, book.getPrice(DeepSide.BUY, 1), 0);
+        assertEquals(9.99, book.getPrice(DeepSide.BUY, 2), 0);
+        assertEquals(10.02, book.getBestAskPrice(), 0);
+        assertEquals(600, book.getDepth(DeepSide.BUY, 3));
+        assertEquals(300, book.getDepth(DeepSide.BUY, 2));
+
+        book.update(1, DeepType.UPDATE, DeepSide.BUY, 10.00, 150);
+        assertEquals(650, book.getDepth(DeepSide.BUY, 10));
+
+        book.update(0, DeepType.DELETE, DeepSide.BUY, 0, 0);
+        assertEquals(10.00, book.getBestBidPrice(), 0);
+        assertEquals(2, book.getLevels(DeepSide.BUY));
+
+        assertEquals((450.0 - 50) / 500, book.getImbalance(3), 1e-12);
+        assertEquals(6, book.getVersion());
+    }
+
+    @Test
+    public void testFullSideDropsLastRow() {
+        for (int i = 0; i < 3; i++) {
+            book.update(i, DeepType.INSERT, DeepSide.SELL, 10 + i, 1);
+        }
+        book.update(0, DeepType.INSERT, DeepSide.SELL, 9, 1);
+        book.update(5, DeepType.INSERT, DeepSide.SELL, 20, 1); // beyond max levels
+
+        double[] prices = new double[5];
+        int[] sizes = new int[5];
+        assertEquals(3, book.copy(DeepSide.SELL, prices, sizes));
+        assertArrayEquals(new double[] { 9, 10, 11, 0, 0 }, prices, 0);
+    }
+
+    @Test
+    public void testReset() {
+        MarketData md = new MarketData();
+        md.updateMktDepth(0, "NSDQ", DeepType.INSERT, DeepSide.BUY, 10, 100);
+        assertEquals(1, md.getOrderBook().getLevels(DeepSide.BUY));
+
+        md.resetMktDepth();
+        assertEquals(0, md.getOrderBook().getLevels(DeepSide.BUY));
+        assertEquals(2, md.getDepthSequencer().get());
+    }
+}
@@ -0,0 +1,165 @@
+package jo.model;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.ib.client.Types.BarSize;
+
+public class RealtimeBarAggregatorTest {
+    // on a 30 sec (and 1 min) boundary
+    private static final long T0 = 1_525_859_520L;
+
+    @Test
+    public void testBucketsAlignedToEpoch() {
+        MarketData md = new MarketData();
+        Bars bars = md.getBars(BarSize._30_secs);
+
+        // session starts mid-bucket
+        md.realtimeBar(new Bar(T0 + 15, 10.2, 10.0, 10.1, 10.0, 10.1, 100, 1));
+        md.realtimeBar(new Bar(T0 + 20, 10.5, 10.0, 10.0, 10.4, 10.2, 100, 2));
+        assertEquals(0, bars.getSize());
+        md.realtimeBar(new Bar(T0 + 25, 10.4, 9.8, 10.4, 9.9, 10.1, 100, 3));
+        // completed by its last realtime bar
+        assertEquals(1, bars.getSize());
+        assertBar(bars.get(0), T0, 10.1, 10.5, 9.8, 9.9, 300, 6);
+
+        for (int i = 0; i < 6; i++) {
+            md.realtimeBar(new Bar(T0 + 30 + i * 5, 11 + i, 9 - i, 10 + i, 10.5 + i, 10, 10, 1));
+        }
+        assertEquals(2, bars.getSize());
+        assertBar(bars.get(1), T0 + 30, 10, 16, 4, 15.5, 60, 6);
+    }
+
+    @Test
+    public void testMissingRealtimeBars() {
+        MarketData md = new MarketData();
+        Bars bars = md.getBars(BarSize._30_secs);
+
+        // T0 + 25 missing
+        for (int i = 0; i < 5; i++) {
+            md.realtimeBar(new Bar(T0 + i * 5, 10 + i, 10, 10, 10 + i, 10, 100, 1));
+        }
+        assertEquals(0, bars.getSize());
+
+        // completes the previous bucket, starts the next one
+        md.realtimeBar(new Bar(T0 + 35, 20, 19, 19, 20, 19.5, 100, 1));
+        assertEquals(1, bars.getSize());
+        assertBar(bars.get(0), T0, 10, 14, 10, 14, 500, 5);
+
+        // no realtime bar at all in T0 + 60: no bar, the next one keeps its own time
+        md.realtimeBar(new Bar(T0 + 90, 21, 20, 20, 21, 20.5, 100, 1));
+        assertEquals(2, bars.getSize());
+        assertBar(bars.get(1), T0 + 30, 19, 20, 19, 20, 100, 1);
+
+        Bar forming = new Bar();
+        assertTrue(md.getFormingBar(BarSize._30_secs, forming));
+        assertBar(forming, T0 + 90, 20, 21, 20, 21, 100, 1);
+    }
+
+    @Test
+    public void testLateBarIgnored() {
+        MarketData md = new MarketData();
+        Bars bars = md.getBars(BarSize._30_secs);
+
+        md.realtimeBar(new Bar(T0 + 30, 11, 10, 10, 11, 10.5, 100, 1));
+        // belongs to the previous bucket, already gone
+        md.realtimeBar(new Bar(T0 + 25, 50, 1, 1, 50, 25, 100, 1));
+        md.realtimeBar(new Bar(T0 + 35, 12, 10, 11, 12, 11.5, 100, 1));
+
+        Bar forming = new Bar();
+        assertTrue(md.getFormingBar(BarSize._30_secs, forming));
+        assertBar(forming, T0 + 30, 10, 12, 10, 12, 200, 2);
+        assertEquals(0, bars.getSize());
+    }
+
+    @Test
+    public void testWapVolumeWeighted() {
+        MarketData md = new MarketData();
+        md.getBars(BarSize._30_secs);
+
+        md.realtimeBar(new Bar(T0, 11, 10, 10, 11, 10, 100, 1));
+        md.realtimeBar(new Bar(T0 + 5, 11, 10, 11, 11, 11, 300, 1));
+        Bar forming = new Bar();
+        assertTrue(md.getFormingBar(BarSize._30_secs, forming));
+        assertEquals((10 * 100 + 11 * 300) / 400.0, forming.getWap(), 1e-9);
+
+        // no volume at all: plain average
+        md.realtimeBar(new Bar(T0 + 30, 11, 10, 10, 11, 10, 0, 0));
+        md.realtimeBar(new Bar(T0 + 35, 11, 10, 11, 11, 11, 0, 0));
+        assertTrue(md.getFormingBar(BarSize._30_secs, forming));
+        assertEquals(10.5, forming.getWap(), 1e-9);
+        assertEquals(0, forming.getVolume());
+    }
+
+    @Test
+    public void testFormingBar() {
+        MarketData md = new MarketData();
+        md.getBars(BarSize._30_secs);
+        Bar forming = new Bar();
+        assertFalse(md.getFormingBar(BarSize._30_secs, forming));
+        assertFalse(md.getFormingBar(BarSize._5_secs, forming));
+
+        for (int i = 0; i < 5; i++) {
+            md.realtimeBar(new Bar(T0 + i * 5, 10 + i, 10, 10, 10 + i, 10, 100, 1));
+            assertTrue(md.getFormingBar(BarSize._30_secs, forming));
+            assertBar(forming, T0, 10, 10 + i, 10, 10 + i, 100 * (i + 1), i + 1);
+        }
+        md.realtimeBar(new Bar(T0 + 25, 15, 10, 14, 15, 10, 100, 1));
+        assertFalse(md.getFormingBar(BarSize._30_secs, forming));
+    }
+
+    /*
+     * Realtime bar i has every price at i, volume and count 1: a consistent forming bar has low == open,
+     * high == close, close - open == volume - 1 and its time on the bucket of open
+     */
+    @Test
+    public void testFormingBarConsistentWhileUpdated() throws Exception {
+        MarketData md = new MarketData();
+        md.getBars(BarSize._1_min);
+        int count = 50_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    md.realtimeBar(new Bar(T0 + i * 5, i, i, i, i, i, 1, 1));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writer.start();
+
+        Bar forming = new Bar();
+        int reads = 0;
+        while (writer.isAlive()) {
+            if (md.getFormingBar(BarSize._1_min, forming)) {
+                assertEquals(forming.getOpen(), forming.getLow(), 0);
+                assertEquals(forming.getClose(), forming.getHigh(), 0);
+                assertEquals(forming.getVolume() - 1, forming.getClose() - forming.getOpen(), 0);
+                assertEquals(forming.getVolume(), forming.getCount());
+                assertEquals(T0 + (long) forming.getOpen() / 12 * 60, forming.getTime());
+                reads++;
+            }
+        }
+        writer.join();
+
+        assertNull(failure.get());
+        assertTrue(reads > 0);
+        assertEquals(count / 12, md.getBars(BarSize._1_min).getSize());
+    }
+
+    private static void assertBar(Bar bar, long time, double open, double high, double low, double close, long volume,
+            int count) {
+        assertEquals(time, bar.getTime());
+        assertEquals(open, bar.getOpen(), 1e-9);
+        assertEquals(high, bar.getHigh(), 1e-9);
+        assertEquals(low, bar.getLow(), 1e-9);
+        assertEquals(close, bar.getClose(), 1e-9);
+        assertEquals(volume, bar.getVolume());
+        assertEquals(count, bar.getCount());
+    }
+}
@@ -0,0 +1,50 @@
+package jo.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RtVolumeParserTest {
+    private final RtVolumeParser parser = new RtVolumeParser();
+
+    @Test
+    public void testTrade() {
+        assertTrue(parser.parse("170.84;100;1519636841808;2100;170.83991182;true"));
+        assertEquals(170.84, parser.getPrice(), 0);
+        assertEquals(100, parser.getSize());
+        assertEquals(1519636841808L, parser.getTime());
+        assertEquals(2100, parser.getDayVolume());
+        assertEquals(170.83991182, parser.getVwap(), 0);
+    }
+
+    @Test
+    public void testNoTrade() {
+        assertFalse(parser.parse(";0;1519636841808;21;170.83991182;true"));
+        assertFalse(parser.parse("170.84;100;1519636841808;2100;170.83991182"));
+        assertFalse(parser.parse("170.84;100;1519636841808;2100;170.83991182;true;"));
+        assertFalse(parser.parse(""));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testMalformed() {
+        parser.parse("170.8x;100;1519636841808;2100;170.83991182;true");
+    }
+
+    @Test
+    public void testSameAsJdk() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String price = String.valueOf(rnd.nextInt(100_000) / 100.0);
+            String vwap = String.format("%." + rnd.nextInt(12) + "f", rnd.nextDouble() * 2000);
+            String size = String.valueOf(rnd.nextInt(100_000));
+            String value = price + ";" + size + ";" + System.currentTimeMillis() + ";" + rnd.nextInt(Integer.MAX_VALUE) + ";" + vwap + ";false";
+
+            assertTrue(value, parser.parse(value));
+            assertEquals(value, Double.parseDouble(price), parser.getPrice(), 0);
+            assertEquals(value, Double.parseDouble(vwap), parser.getVwap(), 0);
+            assertEquals(value, Integer.parseInt(size), parser.getSize());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package jo.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TradeBarBuilderTest {
+    private static final long T0 = 1519636841000L;
+    private static final double[] PRICES = { 10.00, 10.02, 10.01, 10.04, 10.06, 10.03, 10.00, 9.99 };
+
+    @Test
+    public void testTickBars() {
+        Bars bars = feed(new TickBarBuilder(3));
+        assertEquals(2, bars.getSize());
+        assertBar(bars.get(0), T0 / 1000, 10.00, 10.02, 10.00, 10.01, 3);
+        assertBar(bars.get(1), T0 / 1000 + 1, 10.04, 10.06, 10.03, 10.03, 3);
+        assertEquals((10.04 + 10.06 + 10.03) / 3, bars.get(1).getWap(), 1e-9);
+    }
+
+    @Test
+    public void testVolumeBars() {
+        Bars bars = feed(new VolumeBarBuilder(400));
+        assertEquals(2, bars.getSize());
+        assertEquals(400, bars.get(0).getVolume());
+        assertEquals(4, bars.get(0).getCount());
+    }
+
+    @Test
+    public void testRangeBars() {
+        Bars bars = feed(new RangeBarBuilder(0.05));
+        // 10.06 and 10.00 would take the forming bar beyond 0.05
+        assertEquals(2, bars.getSize());
+        assertBar(bars.get(0), T0 / 1000, 10.00, 10.04, 10.00, 10.04, 4);
+        assertBar(bars.get(1), T0 / 1000 + 1, 10.06, 10.06, 10.03, 10.03, 2);
+    }
+
+    @Test
+    public void testTimeBars() {
+        Bars bars = feed(new TimeBarBuilder(1));
+        // last second not completed yet
+        assertEquals(2, bars.getSize());
+        assertBar(bars.get(0), T0 / 1000, 10.00, 10.02, 10.00, 10.01, 3);
+        assertBar(bars.get(1), T0 / 1000 + 1, 10.04, 10.06, 10.03, 10.03, 3);
+    }
+
+    @Test
+    public void testBackfillFromTape() {
+        TradeTape tape = new TradeTape(16);
+        for (int i = 0; i < 4; i++) {
+            tape.add(PRICES[i], 100, time(i), 0, 0);
+        }
+
+        TickBarBuilder builder = new TickBarBuilder(3);
+        builder.update(tape);
+        assertEquals(1, builder.getBars().getSize());
+
+        for (int i = 4; i < PRICES.length; i++) {
+            tape.add(PRICES[i], 100, time(i), 0, 0);
+        }
+        builder.update(tape);
+        assertEquals(2, builder.getBars().getSize());
+    }
+
+    private static Bars feed(TradeBarBuilder builder) {
+        for (int i = 0; i < PRICES.length; i++) {
+            builder.update(PRICES[i], 100, time(i));
+        }
+        return builder.getBars();
+    }
+
+    // 3 trades per second
+    private static long time(int i) {
+        return T0 + (i / 3) * 1000 + (i % 3) * 300;
+    }
+
+    private static void assertBar(Bar bar, long time, double open, double high, double low, double close, int count) {
+        assertEquals(time, bar.getTime());
+        assertEquals(open, bar.getOpen(), 1e-9);
+        assertEquals(high, bar.getHigh(), 1e-9);
+        assertEquals(low, bar.getLow(), 1e-9);
+        assertEquals(close, bar.getClose(), 1e-9);
+        assertEquals(count, bar.getCount());
+    }
+}
@@ -0,0 +1,155 @@
+package jo.recording;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ib.client.TickType;
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+import jo.model.Bar;
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.ErrorEvent;
+import jo.recording.event.MarketDepthEvent;
+import jo.recording.event.RealTimeBarEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.recording.event.TickSizeEvent;
+import jo.recording.event.TickStringEvent;
+
+public class BinaryEventTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public BinaryEventTest() {
+        objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<AbstractEvent> events = sampleEvents();
+        List<AbstractEvent> read = readAll(write(events));
+
+        // same fields as the JSON recording
+        assertEquals(toJson(events), toJson(read));
+    }
+
+    @Test
+    public void testTruncatedLastEvent() throws Exception {
+        List<AbstractEvent> events = sampleEvents();
+        byte[] bytes = write(events);
+
+        // recorder killed in the middle of the last event
+        List<AbstractEvent> read = readAll(Arrays.copyOf(bytes, bytes.length - 1));
+        assertEquals(toJson(events.subList(0, events.size() - 1)), toJson(read));
+    }
+
+    @Test
+    public void testSmallerThanJson() throws Exception {
+        List<AbstractEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            events.add(time(new TickPriceEvent(TickType.LAST, 100 + i * 0.01), 1_525_859_517_000L + i * 7));
+            events.add(time(new TickSizeEvent(TickType.LAST_SIZE, 100), 1_525_859_517_000L + i * 7));
+        }
+
+        int jsonBytes = 0;
+        for (AbstractEvent event : events) {
+            jsonBytes += objectMapper.writeValueAsString(event).length() + 1;
+        }
+        byte[] bytes = write(events);
+
+        assertTrue(bytes.length + " bytes vs " + jsonBytes, bytes.length * 5 < jsonBytes);
+    }
+
+    @Test
+    public void testOpenDetectsFormat() throws Exception {
+        List<AbstractEvent> events = sampleEvents();
+
+        File binary = tempFile(".bin");
+        try (BinaryEventWriter writer = BinaryEventWriter.open(binary)) {
+            for (AbstractEvent event : events) {
+                writer.write(event);
+            }
+        }
+
+        File json = tempFile(".log");
+        try (PrintWriter ps = new PrintWriter(new FileOutputStream(json))) {
+            for (AbstractEvent event : events) {
+                ps.println(objectMapper.writeValueAsString(event));
+            }
+        }
+
+        assertEquals(toJson(events), toJson(EventReader.readAll(binary)));
+        assertEquals(toJson(events), toJson(EventReader.readAll(json)));
+    }
+
+    private List<AbstractEvent> sampleEvents() {
+        long t = 1_525_859_517_826L;
+        Bar bar = new Bar(1_525_859_515L, 187.1, 186.9, 187.0, 187.05, 187.02, 1200, 14);
+        Bar nextBar = new Bar(1_525_859_520L, 187.2, 187.0, 187.05, 187.15, 187.1, 800, 9);
+        return new ArrayList<>(Arrays.asList(
+                time(new TickPriceEvent(TickType.BID, 187.01), t),
+                time(new TickPriceEvent(TickType.ASK, 187.03), t),
+                time(new TickPriceEvent(TickType.BID, 187.0), t + 15),
+                time(new TickStringEvent(TickType.RT_VOLUME, "187.02;100;1525859517850;1513470;187.0211;true"), t + 24),
+                time(new TickStringEvent(TickType.LAST_TIMESTAMP, null), t + 24),
+                time(new RealTimeBarEvent(bar), t + 100),
+                time(new RealTimeBarEvent(nextBar), t + 5100),
+                time(new MarketDepthEvent(0, "NSDQ", DeepType.INSERT, DeepSide.BUY, 187.0, 300), t + 5101),
+                time(new MarketDepthEvent(1, "ARCA", DeepType.UPDATE, DeepSide.SELL, 187.04, 200), t + 5101),
+                time(new MarketDepthEvent(0, "NSDQ", DeepType.DELETE, DeepSide.BUY, 187.0, 0), t + 5102),
+                time(new ErrorEvent(-1, 2104, "Market data farm connection is OK:usfarm"), t + 5000),
+                time(new TickSizeEvent(TickType.VOLUME, 15134), t + 5200)));
+    }
+
+    private static File tempFile(String suffix) throws Exception {
+        File file = File.createTempFile("Market-", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static AbstractEvent time(AbstractEvent event, long time) {
+        event.setTime(time);
+        return event;
+    }
+
+    private static byte[] write(List<AbstractEvent> events) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryEventWriter writer = new BinaryEventWriter(out)) {
+            for (AbstractEvent event : events) {
+                writer.write(event);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<AbstractEvent> readAll(byte[] bytes) throws Exception {
+        List<AbstractEvent> events = new ArrayList<>();
+        try (BinaryEventReader reader = new BinaryEventReader(new ByteArrayInputStream(bytes))) {
+            AbstractEvent event;
+            while ((event = reader.read()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private List<String> toJson(List<AbstractEvent> events) throws Exception {
+        List<String> json = new ArrayList<>();
+        for (AbstractEvent event : events) {
+            json.add(objectMapper.writeValueAsString(event));
+        }
+        return json;
+    }
+}
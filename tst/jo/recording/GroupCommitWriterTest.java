@@ -0,0 +1,145 @@
+package jo.recording;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ib.client.TickType;
+
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.util.MpscRing;
+import jo.util.OverflowPolicy;
+
+public class GroupCommitWriterTest {
+
+    @Test
+    public void testBurstIsOneBatch() throws Exception {
+        MpscRing<AbstractEvent> q = new MpscRing<>(8192, OverflowPolicy.BLOCK);
+        List<AbstractEvent> events = events(3000);
+        offerAll(q, events);
+
+        CountingWriter out = new CountingWriter();
+        GroupCommitWriter writer = new GroupCommitWriter("test", q, out, FlushPolicy.perBatch());
+        assertFalse(writer.drain());
+        assertFalse(writer.drain());
+        writer.close();
+
+        assertEquals(events, out.events);
+        RecorderStats stats = writer.getStats();
+        assertEquals(1, stats.getBatches());
+        assertEquals(3000, stats.getMaxBatchSize());
+        assertEquals(1, stats.getFlushes());
+        assertEquals(1, out.flushes);
+        assertTrue(out.closed);
+        assertTrue(writer.isClosed());
+    }
+
+    @Test
+    public void testBatchLimit() throws Exception {
+        MpscRing<AbstractEvent> q = new MpscRing<>(8192, OverflowPolicy.BLOCK);
+        offerAll(q, events(GroupCommitWriter.MAX_BATCH + 10));
+
+        CountingWriter out = new CountingWriter();
+        GroupCommitWriter writer = new GroupCommitWriter("test", q, out, FlushPolicy.perBatch());
+        assertTrue(writer.drain());
+        assertEquals(GroupCommitWriter.MAX_BATCH, out.events.size());
+        assertFalse(writer.drain());
+        assertEquals(GroupCommitWriter.MAX_BATCH + 10, out.events.size());
+    }
+
+    @Test
+    public void testFlushOnClose() throws Exception {
+        MpscRing<AbstractEvent> q = new MpscRing<>(8192, OverflowPolicy.BLOCK);
+        CountingWriter out = new CountingWriter();
+        GroupCommitWriter writer = new GroupCommitWriter("test", q, out, FlushPolicy.onClose().withSync());
+
+        List<AbstractEvent> events = events(100);
+        offerAll(q, events.subList(0, 50));
+        writer.drain();
+        offerAll(q, events.subList(50, 100));
+        writer.drain();
+        assertEquals(0, out.flushes + out.forces);
+        assertEquals(Long.MAX_VALUE, writer.getFlushDue());
+
+        writer.close();
+        assertEquals(events, out.events);
+        assertEquals(1, out.forces);
+        assertTrue(out.closed);
+    }
+
+    @Test
+    public void testFlushEveryInterval() throws Exception {
+        MpscRing<AbstractEvent> q = new MpscRing<>(8192, OverflowPolicy.BLOCK);
+        CountingWriter out = new CountingWriter();
+        GroupCommitWriter writer = new GroupCommitWriter("test", q, out, FlushPolicy.every(60_000));
+
+        offerAll(q, events(10));
+        long start = System.nanoTime();
+        writer.drain();
+        assertEquals(0, out.flushes);
+        assertTrue(writer.getFlushDue() - start > 50_000_000_000L);
+
+        // close writes and closes the journal, no interval flush
+        offerAll(q, events(10));
+        writer.close();
+        assertEquals(20, out.events.size());
+        assertTrue(out.closed);
+    }
+
+    @Test
+    public void testPolicyOf() {
+        assertTrue(FlushPolicy.of("batch").isPerBatch());
+        assertTrue(FlushPolicy.of("close").isOnClose());
+        assertEquals(250, FlushPolicy.of("250ms").getIntervalMillis());
+        assertTrue(FlushPolicy.of("250ms+sync").isSync());
+        assertFalse(FlushPolicy.of("batch").isSync());
+        assertEquals("250ms+sync", FlushPolicy.of("250ms+sync").toString());
+    }
+
+    static void offerAll(MpscRing<AbstractEvent> q, List<AbstractEvent> events) {
+        for (AbstractEvent event : events) {
+            assertTrue(q.offer(event));
+        }
+    }
+
+    static List<AbstractEvent> events(int count) {
+        List<AbstractEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AbstractEvent event = new TickPriceEvent(TickType.LAST, 100 + i);
+            event.setTime(i);
+            events.add(event);
+        }
+        return events;
+    }
+
+    static class CountingWriter implements EventWriter {
+        final List<AbstractEvent> events = new ArrayList<>();
+        volatile int flushes;
+        volatile int forces;
+        volatile boolean closed;
+
+        @Override
+        public void write(AbstractEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void force() {
+            forces++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
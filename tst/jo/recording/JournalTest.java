@@ -0,0 +1,276 @@
+package jo.recording;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ib.client.TickType;
+import com.ib.client.Types.DeepSide;
+import com.ib.client.Types.DeepType;
+
+import jo.model.Bar;
+import jo.recording.event.AbstractEvent;
+import jo.recording.event.MarketDepthEvent;
+import jo.recording.event.RealTimeBarEvent;
+import jo.recording.event.TickPriceEvent;
+import jo.recording.event.TickSizeEvent;
+import jo.recording.event.TickStringEvent;
+
+public class JournalTest {
+    private static final int SEGMENT_SIZE = 4096;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JournalTest() {
+        objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+    }
+
+    @Test
+    public void testRoundTripAcrossSegments() throws Exception {
+        File dir = tempDir();
+        List<AbstractEvent> events = events(2000);
+
+        try (MappedJournal journal = new MappedJournal(dir, SEGMENT_SIZE)) {
+            for (AbstractEvent event : events) {
+                journal.write(event);
+            }
+            assertTrue("segments " + journal.getSegment(), journal.getSegment() > 3);
+        }
+
+        assertEquals(toJson(events), toJson(EventReader.readAll(dir)));
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        File dir = tempDir();
+        List<AbstractEvent> events = events(300);
+
+        try (MappedJournal journal = new MappedJournal(dir, SEGMENT_SIZE)) {
+            for (AbstractEvent event : events.subList(0, 100)) {
+                journal.write(event);
+            }
+        }
+        try (MappedJournal journal = new MappedJournal(dir, SEGMENT_SIZE)) {
+            for (AbstractEvent event : events.subList(100, 300)) {
+                journal.write(event);
+            }
+        }
+
+        assertEquals(toJson(events), toJson(EventReader.readAll(dir)));
+    }
+
+    @Test
+    public void testFlyweight() throws Exception {
+        File dir = tempDir();
+        try (MappedJournal journal = new MappedJournal(dir, SEGMENT_SIZE)) {
+            journal.write(time(new TickPriceEvent(TickType.LAST, 187.02), 1000));
+            journal.write(time(new TickStringEvent(TickType.RT_VOLUME, "187.02;100"), 1001));
+            journal.write(time(new RealTimeBarEvent(new Bar(1_525_859_515L, 187.1, 186.9, 187.0, 187.05, 187.02, 1200, 14)), 1002));
+        }
+
+        try (JournalReader reader = JournalReader.open(dir)) {
+            EventRecord record = reader.record();
+
+            assertTrue(reader.next());
+            assertEquals(EventRecord.TICK_PRICE, record.getType());
+            assertEquals(1000, record.getTime());
+            assertEquals(TickType.LAST, record.getTickType());
+            assertEquals(187.02, record.getPrice(), 0);
+
+            assertTrue(reader.next());
+            assertEquals(EventRecord.TICK_STRING, record.getType());
+            assertEquals("187.02;100", record.getValue());
+
+            assertTrue(reader.next());
+            assertEquals(EventRecord.REAL_TIME_BAR, record.getType());
+            Bar bar = record.getBar(new Bar());
+            assertEquals(1_525_859_515L, bar.getTime());
+            assertEquals(187.05, bar.getClose(), 0);
+            assertEquals(1200, bar.getVolume());
+
+            assertFalse(reader.next());
+            assertTrue(reader.isFinished());
+        }
+    }
+
+    @Test
+    public void testGrowAndTrim() throws Exception {
+        File dir = tempDir();
+        File segment = MappedJournal.segmentFile(dir, 0);
+        List<AbstractEvent> events = events(20000);
+
+        try (MappedJournal journal = new MappedJournal(dir, 1024 * 1024)) {
+            for (AbstractEvent event : events.subList(0, 10)) {
+                journal.write(event);
+            }
+            assertEquals(64 * 1024, segment.length());
+            for (AbstractEvent event : events.subList(10, events.size())) {
+                journal.write(event);
+            }
+            assertTrue("length " + segment.length(), segment.length() > 64 * 1024);
+            assertEquals(0, journal.getSegment());
+        }
+
+        // Windows can't truncate a mapped file
+        if (!System.getProperty("os.name").startsWith("Windows")) {
+            try (RandomAccessFile raf = new RandomAccessFile(segment, "r")) {
+                raf.seek(raf.length() - 4);
+                assertEquals(MappedJournal.END_OF_JOURNAL, raf.readInt());
+            }
+        }
+        assertEquals(toJson(events), toJson(EventReader.readAll(dir)));
+    }
+
+    @Test
+    public void testNoFileHandleKept() throws Exception {
+        File fds = new File("/proc/self/fd");
+        if (!fds.isDirectory()) {
+            // Linux only
+            return;
+        }
+
+        File dir = tempDir();
+        List<AbstractEvent> events = events(20000);
+        try (MappedJournal journal = new MappedJournal(dir, 256 * 1024)) {
+            for (int i = 0; i < events.size(); i++) {
+                journal.write(events.get(i));
+                if (i % 1000 == 0) {
+                    assertEquals(0, openFiles(fds, dir));
+                }
+            }
+            assertTrue(journal.getSegment() > 0);
+            assertEquals(0, openFiles(fds, dir));
+        }
+        assertEquals(0, openFiles(fds, dir));
+    }
+
+    private static int openFiles(File fds, File dir) throws Exception {
+        int count = 0;
+        File[] links = fds.listFiles();
+        if (links != null) {
+            for (File link : links) {
+                try {
+                    if (link.getCanonicalPath().startsWith(dir.getCanonicalPath())) {
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // closed meanwhile
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testTailWhileWriting() throws Exception {
+        tail(SEGMENT_SIZE);
+    }
+
+    @Test
+    public void testTailWhileGrowing() throws Exception {
+        tail(1024 * 1024);
+    }
+
+    private void tail(int segmentSize) throws Exception {
+        File dir = tempDir();
+        List<AbstractEvent> events = events(20000);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        MappedJournal journal = new MappedJournal(dir, segmentSize);
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < events.size(); i++) {
+                    journal.write(events.get(i));
+                    if (i % 100 == 0) {
+                        Thread.yield();
+                    }
+                }
+                journal.close();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+
+        List<Long> times = new ArrayList<>();
+        try (JournalReader reader = journal.reader()) {
+            writer.start();
+            while (!reader.isFinished()) {
+                if (reader.next()) {
+                    times.add(reader.record().getTime());
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+        writer.join();
+
+        assertNull(failure.get());
+        assertEquals(events.size(), times.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(events.get(i).getTime(), (long) times.get(i));
+        }
+    }
+
+    private static List<AbstractEvent> events(int count) {
+        List<AbstractEvent> events = new ArrayList<>();
+        long t = 1_525_859_517_826L;
+        for (int i = 0; i < count; i++) {
+            switch (i % 5) {
+            case 0:
+                events.add(time(new TickPriceEvent(TickType.LAST, 187 + i % 50 * 0.01), t + i));
+                break;
+            case 1:
+                events.add(time(new TickSizeEvent(TickType.LAST_SIZE, 100 + i), t + i));
+                break;
+            case 2:
+                events.add(time(new TickStringEvent(TickType.RT_VOLUME, "187.02;100;" + (t + i)), t + i));
+                break;
+            case 3:
+                events.add(time(new MarketDepthEvent(i % 10, "NSDQ", DeepType.UPDATE, DeepSide.SELL, 187.04, 200), t + i));
+                break;
+            default:
+                Bar bar = new Bar(t / 1000 + i, 187.1, 186.9, 187.0, 187.05, 187.02, 1200, 14);
+                events.add(time(new RealTimeBarEvent(bar), t + i));
+            }
+        }
+        return events;
+    }
+
+    private static File tempDir() throws Exception {
+        File dir = Files.createTempDirectory("journal").toFile();
+        dir.deleteOnExit();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }));
+        return dir;
+    }
+
+    private static AbstractEvent time(AbstractEvent event, long time) {
+        event.setTime(time);
+        return event;
+    }
+
+    private List<String> toJson(List<AbstractEvent> events) throws Exception {
+        List<String> json = new ArrayList<>();
+        for (AbstractEvent event : events) {
+            json.add(objectMapper.writeValueAsString(event));
+        }
+        return json;
+    }
+}
@@ -0,0 +1,81 @@
+package jo.recording;
+
+import static jo.recording.GroupCommitWriterTest.events;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import jo.recording.GroupCommitWriterTest.CountingWriter;
+import jo.recording.event.AbstractEvent;
+import jo.util.OverflowPolicy;
+
+public class RecordingServiceTest {
+
+    @Test
+    public void testManyStreamsFewThreads() throws Exception {
+        int symbols = 300;
+        int events = 2000;
+        int threadsBefore = Thread.activeCount();
+        RecordingService service = new RecordingService(2);
+
+        List<CountingWriter> outs = new ArrayList<>();
+        List<GroupCommitWriter> streams = new ArrayList<>();
+        for (int i = 0; i < symbols; i++) {
+            CountingWriter out = new CountingWriter();
+            outs.add(out);
+            streams.add(service.open("S" + i, out, OverflowPolicy.BLOCK, FlushPolicy.perBatch()));
+        }
+        assertEquals(symbols, service.getStreams());
+        assertTrue(Thread.activeCount() <= threadsBefore + 2);
+
+        // feed threads, as the IB reader, each one owns a part of the symbols
+        List<AbstractEvent> sample = events(events);
+        List<Thread> feeds = new ArrayList<>();
+        for (int f = 0; f < 3; f++) {
+            int feed = f;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    for (int s = feed; s < symbols; s += 3) {
+                        streams.get(s).getQueue().offer(sample.get(i));
+                    }
+                }
+            });
+            feeds.add(thread);
+            thread.start();
+        }
+        for (Thread thread : feeds) {
+            thread.join();
+        }
+
+        // one stream closed alone, the others on shutdown
+        service.close(streams.get(0));
+        assertTrue(streams.get(0).isClosed());
+        assertEquals(symbols - 1, service.getStreams());
+        service.shutdown();
+
+        for (int s = 0; s < symbols; s++) {
+            assertTrue(streams.get(s).isClosed());
+            assertTrue(outs.get(s).closed);
+            assertEquals("symbol " + s, sample, outs.get(s).events);
+        }
+        assertEquals(0, service.getStreams());
+    }
+
+    @Test
+    public void testIntervalFlushWithoutNewEvents() throws Exception {
+        RecordingService service = new RecordingService(1);
+        CountingWriter out = new CountingWriter();
+        GroupCommitWriter stream = service.open("S", out, OverflowPolicy.BLOCK, FlushPolicy.every(20));
+
+        stream.getQueue().offer(events(1).get(0));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (out.flushes == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, out.flushes);
+        service.shutdown();
+    }
+}
@@ -0,0 +1,142 @@
+package jo.rule;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.ib.client.TickType;
+
+import jo.model.Bar;
+import jo.model.BarType;
+import jo.model.Bars;
+import jo.model.MarketData;
+import jo.model.Quote;
+import jo.tech.Indicators;
+import jo.tech.StreamingIndicator;
+import jo.util.PriceUtils;
+
+public class CompiledRuleTest {
+    private static final int PERIOD = 5;
+
+    @Test
+    public void testSharedTermsCompiledOnce() {
+        Bars bars = new Bars();
+        Expr close = Expr.bar(bars, BarType.CLOSE, 0);
+        Expr open = Expr.bar(bars, BarType.OPEN, 0);
+
+        CompiledRule rule = CompiledRule.compile(close.gt(open), Expr.bar(bars, BarType.CLOSE, 0).gt(open), close.lt(open));
+        // close, open, gt, lt
+        assertEquals(4, rule.size());
+        assertEquals(rule.slotOf(close.gt(open)), rule.slotOf(Expr.bar(bars, BarType.CLOSE, 0).gt(open)));
+    }
+
+    @Test
+    public void testNotEnoughBarsIsFalse() {
+        Bars bars = new Bars();
+        Expr up = Expr.bar(bars, BarType.CLOSE, 1).gt(Expr.bar(bars, BarType.OPEN, 1));
+        Expr down = Expr.bar(bars, BarType.CLOSE, 1).lt(Expr.bar(bars, BarType.OPEN, 1));
+        CompiledRule rule = CompiledRule.compile(up, down);
+
+        addBar(bars, 1, 2, 0, 3);
+        rule.evaluate();
+        assertFalse(rule.isTrue(rule.slotOf(up)));
+        assertFalse(rule.isTrue(rule.slotOf(down)));
+
+        addBar(bars, 1, 2, 0, 3);
+        rule.evaluate();
+        assertTrue(rule.isTrue(rule.slotOf(up)));
+    }
+
+    @Test
+    public void testLastPriceFromSnapshot() {
+        MarketData md = new MarketData();
+        md.tickPrice(TickType.LAST, 10);
+        Quote quote = new Quote();
+        Expr last = Expr.lastPrice(quote);
+        Expr above = last.gt(Expr.constant(10.5));
+        CompiledRule rule = CompiledRule.compile(above);
+
+        md.getQuote(quote);
+        // tick between the snapshot and the evaluation
+        md.tickPrice(TickType.LAST, 11);
+        rule.evaluate();
+        assertEquals(10, rule.get(rule.slotOf(last)), 0);
+        assertFalse(rule.isTrue(rule.slotOf(above)));
+
+        md.getQuote(quote);
+        rule.evaluate();
+        assertEquals(11, rule.get(rule.slotOf(last)), 0);
+        assertTrue(rule.isTrue(rule.slotOf(above)));
+    }
+
+    @Test
+    public void testRandomAgainstHandWritten() {
+        Random random = new Random(42);
+        Bars bars = new Bars();
+        StreamingIndicator ema = Indicators.of(bars).ema(BarType.CLOSE, PERIOD);
+        StreamingIndicator atr = Indicators.of(bars).atr(PERIOD);
+
+        Expr close0 = Expr.bar(bars, BarType.CLOSE, 0);
+        Expr open0 = Expr.bar(bars, BarType.OPEN, 0);
+        Expr close1 = Expr.bar(bars, BarType.CLOSE, 1);
+        Expr open1 = Expr.bar(bars, BarType.OPEN, 1);
+        Expr ema0 = Expr.indicator(ema, 0).fixPriceVariance();
+        Expr ema1 = Expr.indicator(ema, 1).fixPriceVariance();
+        Expr atr0 = Expr.indicator(atr, 0);
+
+        Expr ready = Expr.defined(ema0, ema1, atr0);
+        Expr openLong = Expr.and(
+                ema0.changeFrom(ema1).gt(Expr.constant(0)),
+                close0.minus(open0).abs().lt(atr0),
+                close0.gt(open0),
+                close1.gt(open1));
+        CompiledRule rule = CompiledRule.compile(ready, openLong);
+
+        int longs = 0;
+        double price = 100;
+        for (int i = 0; i < 1000; i++) {
+            double open = price;
+            price += random.nextGaussian();
+            addBar(bars, open, Math.max(open, price) + random.nextDouble(), Math.min(open, price) - random.nextDouble(), price);
+
+            // several ticks per bar, nothing changed after the first
+            for (int tick = 0; tick < 3; tick++) {
+                rule.evaluate();
+
+                boolean expectedReady = i >= PERIOD;
+                assertEquals(expectedReady, rule.isTrue(rule.slotOf(ready)));
+
+                boolean expectedLong = false;
+                if (expectedReady) {
+                    double e0 = fix(ema.get(0));
+                    double e1 = fix(ema.get(1));
+                    double c0 = bars.getLastBar(BarType.CLOSE, 0);
+                    double o0 = bars.getLastBar(BarType.OPEN, 0);
+                    double c1 = bars.getLastBar(BarType.CLOSE, 1);
+                    double o1 = bars.getLastBar(BarType.OPEN, 1);
+                    expectedLong = (e0 - e1) / e1 > 0 && Math.abs(c0 - o0) < atr.get(0) && c0 > o0 && c1 > o1;
+                }
+                assertEquals(expectedLong, rule.isTrue(rule.slotOf(openLong)));
+                if (expectedLong && tick == 0) {
+                    longs++;
+                }
+            }
+        }
+        assertTrue(longs > 0);
+    }
+
+    private static double fix(double price) {
+        return PriceUtils.fixPriceVariance(price);
+    }
+
+    private static void addBar(Bars bars, double open, double high, double low, double close) {
+        Bar bar = new Bar();
+        bar.setOpen(open);
+        bar.setHigh(high);
+        bar.setLow(low);
+        bar.setClose(close);
+        bars.addBar(bar);
+    }
+}
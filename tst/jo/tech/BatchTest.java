@@ -0,0 +1,100 @@
+package jo.tech;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jo.model.Bar;
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * Batch against the bar by bar indicators, fed with the same bars
+ */
+public class BatchTest {
+    private static final int SIZE = 500;
+    private static final int PERIOD = 14;
+    private Bars bars;
+
+    @Before
+    public void setup() {
+        Random random = new Random(42);
+        bars = new Bars();
+
+        double price = 100;
+        for (int i = 0; i < SIZE; i++) {
+            price += random.nextGaussian();
+            Bar bar = new Bar();
+            bar.setTime(i);
+            bar.setClose(price);
+            bar.setOpen(price);
+            bar.setHigh(price + random.nextDouble());
+            bar.setLow(price - random.nextDouble());
+            bars.addBar(bar);
+        }
+    }
+
+    @Test
+    public void testMovingAverages() {
+        assertSeries(Indicators.of(bars).sma(BarType.CLOSE, PERIOD), Batch.sma(bars, BarType.CLOSE, PERIOD));
+        assertSeries(Indicators.of(bars).ema(BarType.CLOSE, PERIOD), Batch.ema(bars, BarType.CLOSE, PERIOD));
+    }
+
+    @Test
+    public void testAtr() {
+        assertSeries(Indicators.of(bars).atr(PERIOD), Batch.atr(bars, PERIOD));
+        assertSeries(Indicators.of(bars).atrFlex(PERIOD), Batch.atrFlex(bars, PERIOD));
+    }
+
+    @Test
+    public void testShortSeries() {
+        double[] in = { 1, 2, 3 };
+        double[] ema = Batch.ema(in, 5);
+        for (double value : ema) {
+            assertTrue(Double.isNaN(value));
+        }
+        assertEquals(2.0, Batch.sma(in, 3)[2], 0.0);
+    }
+
+    @Test
+    public void testDonchian() {
+        int lowerPeriod = 7;
+        int upperPeriod = 11;
+        double[] highest = Batch.highest(bars, BarType.HIGH, upperPeriod);
+        double[] lowest = Batch.lowest(bars, BarType.LOW, lowerPeriod);
+
+        Bars growing = new Bars();
+        DonchianChannel donchian = new DonchianChannel(growing, lowerPeriod, upperPeriod);
+        for (int i = 0; i < SIZE; i++) {
+            growing.addBar(bars.get(i));
+
+            Channel channel = donchian.get();
+            if (channel == null) {
+                assertTrue(Double.isNaN(highest[i]) || Double.isNaN(lowest[i]));
+            } else {
+                assertEquals(channel.getUpper(), highest[i], 0.0);
+                assertEquals(channel.getLower(), lowest[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testPctChange() {
+        double[] change = Batch.pctChange(bars, BarType.CLOSE);
+        assertTrue(Double.isNaN(change[0]));
+        for (int offset = 0; offset < SIZE - 1; offset++) {
+            double expected = new BarsPctChange(bars, BarType.CLOSE, offset).getChange();
+            assertEquals(expected, change[SIZE - 1 - offset], 0.0);
+        }
+    }
+
+    private static void assertSeries(StreamingIndicator expected, double[] actual) {
+        assertEquals(SIZE, actual.length);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals("index " + i, expected.valueAt(i), actual[i], 0.0);
+        }
+    }
+}
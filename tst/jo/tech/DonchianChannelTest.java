@@ -2,10 +2,13 @@ package jo.tech;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import jo.model.Bar;
+import jo.model.BarType;
 import jo.model.Bars;
 
 public class DonchianChannelTest {
@@ -102,4 +105,82 @@ public class DonchianChannelTest {
         assertSame(channel1, channel2);
     }
 
+    @Test
+    public void testNegativeValues() {
+        bar1.setLow(-5);
+        bar1.setHigh(-3);
+        bar2.setLow(-6);
+        bar2.setHigh(-4);
+        bars.addBar(bar1);
+        bars.addBar(bar2);
+        bars.addBar(bar2);
+
+        Channel channel = donchian.get();
+        assertEquals(-6.0, channel.getLower(), 0.0);
+        assertEquals(-4.0, channel.getUpper(), 0.0);
+    }
+
+    @Test
+    public void testRandomAgainstBruteForce() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            int lowerPeriod = 1 + random.nextInt(50);
+            int upperPeriod = 1 + random.nextInt(50);
+            int offset = random.nextInt(3);
+            Bars bars = random.nextBoolean() ? new Bars() : new Bars(100);
+
+            DonchianChannel donchian = new DonchianChannel(bars, lowerPeriod, upperPeriod);
+            donchian.setOffset(offset);
+
+            double price = 100;
+            for (int i = 0; i < 500; i++) {
+                price += random.nextGaussian();
+                Bar bar = new Bar();
+                bar.setHigh(price + random.nextDouble());
+                bar.setLow(price - random.nextDouble());
+                bars.addBar(bar);
+
+                // not every bar, catching up must work too
+                if (random.nextInt(3) == 0) {
+                    continue;
+                }
+
+                Channel expected = bruteForce(bars, lowerPeriod, upperPeriod, offset);
+                assertChannel(expected, donchian.get());
+
+                // shorter periods from the same state
+                int shorterLower = 1 + random.nextInt(lowerPeriod);
+                int shorterUpper = 1 + random.nextInt(upperPeriod);
+                assertChannel(bruteForce(bars, shorterLower, shorterUpper, offset), donchian.get(shorterLower, shorterUpper));
+            }
+        }
+    }
+
+    private static void assertChannel(Channel expected, Channel actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertNotNull(actual);
+            assertEquals(expected.getLower(), actual.getLower(), 0.0);
+            assertEquals(expected.getUpper(), actual.getUpper(), 0.0);
+        }
+    }
+
+    private static Channel bruteForce(Bars bars, int lowerPeriod, int upperPeriod, int offset) {
+        int end = bars.getSize() - offset;
+        if (end - upperPeriod < bars.getFirstIndex() || end - lowerPeriod < bars.getFirstIndex()) {
+            return null;
+        }
+
+        double upper = Double.NEGATIVE_INFINITY;
+        for (int i = end - upperPeriod; i < end; i++) {
+            upper = Math.max(upper, bars.get(BarType.HIGH, i));
+        }
+
+        double lower = Double.POSITIVE_INFINITY;
+        for (int i = end - lowerPeriod; i < end; i++) {
+            lower = Math.min(lower, bars.get(BarType.LOW, i));
+        }
+        return new Channel(lower, upper);
+    }
 }
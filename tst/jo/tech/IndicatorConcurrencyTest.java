@@ -0,0 +1,157 @@
+package jo.tech;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jo.model.Bar;
+import jo.model.BarType;
+import jo.model.Bars;
+import jo.position.ATRTrailAmountStrategy;
+
+/*
+ * One writer appends bars while readers share the same indicator instances. Every value read must be the value
+ * of a complete version of the bars, as computed by Batch over the whole series, and each version must be computed
+ * once. A reader that saw the same bars count before and after its call knows the version of the value.
+ */
+public class IndicatorConcurrencyTest {
+    private static final int BARS = 20_000;
+    private static final int READERS = 4;
+    private static final int PERIOD = 14;
+    private static final double MULTIPLIER = 2.0;
+
+    private Bar[] input;
+    private double[] sma;
+    private double[] atr;
+    private double[] highest;
+    private double[] lowest;
+
+    @Before
+    public void setup() {
+        Random random = new Random(42);
+        input = new Bar[BARS];
+        double[] high = new double[BARS];
+        double[] low = new double[BARS];
+        double[] close = new double[BARS];
+        double price = 100;
+        for (int i = 0; i < BARS; i++) {
+            price += random.nextGaussian();
+            high[i] = price + random.nextDouble();
+            low[i] = price - random.nextDouble();
+            close[i] = price;
+            input[i] = new Bar(i, high[i], low[i], price, price, price, 100, 1);
+        }
+
+        sma = Batch.sma(close, PERIOD);
+        atr = new double[BARS];
+        Batch.atr(high, low, close, PERIOD, false, atr);
+        highest = Batch.highest(high, PERIOD);
+        lowest = Batch.lowest(low, PERIOD);
+    }
+
+    @Test
+    public void testSharedIndicators() throws Exception {
+        Bars bars = new Bars();
+        StreamingIndicator smaSeries = Indicators.of(bars).sma(BarType.CLOSE, PERIOD);
+        DonchianChannel donchian = new DonchianChannel(bars, PERIOD, PERIOD);
+        ATRTrailAmountStrategy trailAmount = new ATRTrailAmountStrategy(bars, MULTIPLIER, PERIOD, 0);
+
+        AtomicIntegerArray computations = new AtomicIntegerArray(BARS + 1);
+        BarCache<Integer> cache = new BarCache<>(bars, version -> {
+            computations.incrementAndGet(version);
+            // widen the window for a concurrent computation of the same version
+            Thread.yield();
+            return version;
+        });
+
+        run(bars, failure -> {
+            int size = bars.getSize();
+            double smaValue = smaSeries.get(0);
+            Channel channel = donchian.get();
+            Double trail = trailAmount.getTrailAmount(null);
+            BarCache.Versioned<Integer> versioned = cache.getVersioned();
+            boolean sameVersion = bars.getSize() == size;
+
+            if (versioned.getVersion() < size || versioned.getValue() != versioned.getVersion()) {
+                fail(failure, "Cache returned " + versioned + " for size " + size);
+            }
+
+            if (sameVersion && size > 0) {
+                int i = size - 1;
+                check(failure, "SMA", i, sma[i], smaValue);
+                check(failure, "ATR", i, atr[i] * MULTIPLIER, trail == null ? Double.NaN : trail);
+                check(failure, "Upper", i, highest[i], channel == null ? Double.NaN : channel.getUpper());
+                check(failure, "Lower", i, lowest[i], channel == null ? Double.NaN : channel.getLower());
+            }
+
+            // older values, fed by any reader
+            if (size > 0) {
+                int i = (int) (Math.random() * size);
+                check(failure, "SMA", i, sma[i], smaSeries.valueAt(i));
+            }
+        });
+
+        for (int version = 0; version <= BARS; version++) {
+            assertTrue("Version " + version + " computed " + computations.get(version) + " times",
+                    computations.get(version) <= 1);
+        }
+    }
+
+    private void run(Bars bars, Reader reader) throws Exception {
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong reads = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            for (Bar bar : input) {
+                bars.addBar(bar);
+            }
+        }, "Writer");
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    while ((writer.isAlive() || bars.getSize() < BARS) && failure.get() == null) {
+                        reader.read(failure);
+                        reads.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e.toString());
+                }
+            }, "Reader#" + r));
+        }
+
+        readers.forEach(Thread::start);
+        writer.start();
+
+        writer.join();
+        for (Thread thread : readers) {
+            thread.join();
+        }
+
+        assertNull(failure.get(), failure.get());
+        assertTrue("Readers did not run", reads.get() > 0);
+    }
+
+    private static void check(AtomicReference<String> failure, String name, int i, double expected, double actual) {
+        boolean same = Double.isNaN(expected) ? Double.isNaN(actual) : Math.abs(expected - actual) < 1e-9;
+        if (!same) {
+            fail(failure, name + " at bar " + i + ": " + actual + ", expected " + expected);
+        }
+    }
+
+    private static void fail(AtomicReference<String> failure, String message) {
+        failure.compareAndSet(null, message);
+    }
+
+    private interface Reader {
+        void read(AtomicReference<String> failure);
+    }
+}
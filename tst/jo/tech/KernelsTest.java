@@ -0,0 +1,67 @@
+package jo.tech;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * VECTOR against SCALAR on random walks, periods around the block boundaries of the extrema
+ */
+public class KernelsTest {
+    private static final int SIZE = 1000;
+
+    @Test
+    public void testAgainstScalar() {
+        Random random = new Random(42);
+        double[] close = new double[SIZE];
+        double[] high = new double[SIZE];
+        double[] low = new double[SIZE];
+        double price = 100;
+        for (int i = 0; i < SIZE; i++) {
+            price += random.nextGaussian();
+            close[i] = price;
+            high[i] = price + random.nextDouble();
+            low[i] = price - random.nextDouble();
+        }
+
+        Kernels scalar = Kernels.SCALAR;
+        Kernels vector = Kernels.VECTOR;
+        for (int period : new int[] { 1, 2, 3, 7, 14, 64, 999, 1000, 1001 }) {
+            assertSeries(scalar.rollingSum(close, period), vector.rollingSum(close, period), 1e-9);
+            assertSeries(scalar.rollingMean(close, period), vector.rollingMean(close, period), 1e-9);
+            assertSeries(scalar.rollingMax(high, period), vector.rollingMax(high, period), 0.0);
+            assertSeries(scalar.rollingMin(low, period), vector.rollingMin(low, period), 0.0);
+        }
+        assertSeries(scalar.trueRange(high, low, close), vector.trueRange(high, low, close), 0.0);
+        assertSeries(scalar.pctChange(close), vector.pctChange(close), 0.0);
+    }
+
+    @Test
+    public void testSameAsBatch() {
+        double[] in = { 3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5 };
+        assertSeries(Batch.sma(in, 3), Kernels.SCALAR.rollingMean(in, 3), 0.0);
+        assertSeries(Batch.highest(in, 4), Kernels.VECTOR.rollingMax(in, 4), 0.0);
+        assertSeries(Batch.lowest(in, 4), Kernels.VECTOR.rollingMin(in, 4), 0.0);
+        assertArrayEquals(new double[] { Double.NaN, Double.NaN, 8, 6, 10, 15, 16, 17, 13, 14, 13 },
+                Kernels.VECTOR.rollingSum(in, 3), 0.0);
+    }
+
+    @Test
+    public void testSwitch() {
+        assertSame(Kernels.VECTOR, Kernels.get());
+        assertSame(Kernels.SCALAR, Kernels.of("scalar"));
+    }
+
+    private static void assertSeries(double[] expected, double[] actual, double delta) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertTrue("NaN expected at " + i, Double.isNaN(actual[i]));
+            } else {
+                assertEquals("at " + i, expected[i], actual[i], delta);
+            }
+        }
+    }
+}
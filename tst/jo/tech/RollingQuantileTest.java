@@ -0,0 +1,62 @@
+package jo.tech;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RollingQuantileTest {
+    private static final double[] PERCENTILES = { 0, 0.1, 0.5, 0.8, 0.99, 1.0 };
+
+    @Test
+    public void testEmpty() {
+        RollingQuantile quantile = new RollingQuantile(5);
+        assertTrue(Double.isNaN(quantile.get(0.5)));
+        assertEquals(0, quantile.getCount());
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        RollingQuantile quantile = new RollingQuantile(3);
+        quantile.add(5);
+        quantile.add(1);
+        quantile.add(3);
+        assertEquals(1.0, quantile.getMin(), 0.0);
+        assertEquals(5.0, quantile.getMax(), 0.0);
+        assertEquals(3.0, quantile.get(0.5), 0.0);
+
+        // 5 leaves the window
+        quantile.add(2);
+        assertEquals(3, quantile.getCount());
+        assertEquals(3.0, quantile.getMax(), 0.0);
+        assertEquals(2.0, quantile.get(0.5), 0.0);
+    }
+
+    @Test
+    public void testRandomAgainstSort() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            int window = 1 + random.nextInt(40);
+            RollingQuantile quantile = new RollingQuantile(window);
+            double[] values = new double[1000];
+
+            for (int i = 0; i < values.length; i++) {
+                // few distinct values, duplicates must be handled too
+                values[i] = random.nextInt(10) * 0.5;
+                quantile.add(values[i]);
+
+                int from = Math.max(0, i - window + 1);
+                double[] sorted = Arrays.copyOfRange(values, from, i + 1);
+                Arrays.sort(sorted);
+
+                assertEquals(sorted.length, quantile.getCount());
+                for (double percentile : PERCENTILES) {
+                    int position = Math.min((int) (sorted.length * percentile), sorted.length - 1);
+                    assertEquals(sorted[position], quantile.get(percentile), 0.0);
+                }
+            }
+        }
+    }
+}
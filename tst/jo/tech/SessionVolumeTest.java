@@ -0,0 +1,142 @@
+package jo.tech;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jo.model.TradeTape;
+
+public class SessionVolumeTest {
+    private static final double TICK = 0.01;
+
+    @Test
+    public void testVwapAndBands() {
+        Random random = new Random(42);
+        SessionVwap vwap = new SessionVwap();
+        assertTrue(Double.isNaN(vwap.getVwap()));
+
+        int n = 10000;
+        double[] prices = new double[n];
+        double[] sizes = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            price += random.nextGaussian() * 0.05;
+            prices[i] = price;
+            sizes[i] = 1 + random.nextInt(500);
+            vwap.add(prices[i], sizes[i]);
+        }
+
+        double volume = 0;
+        double pv = 0;
+        for (int i = 0; i < n; i++) {
+            volume += sizes[i];
+            pv += prices[i] * sizes[i];
+        }
+        double expectedVwap = pv / volume;
+
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            variance += sizes[i] * (prices[i] - expectedVwap) * (prices[i] - expectedVwap);
+        }
+        double expectedStdDev = Math.sqrt(variance / volume);
+
+        assertEquals(volume, vwap.getVolume(), 0.0);
+        assertEquals(expectedVwap, vwap.getVwap(), 1e-9);
+        assertEquals(expectedStdDev, vwap.getStdDev(), 1e-9);
+        assertEquals(expectedVwap + 2 * expectedStdDev, vwap.getUpperBand(2), 1e-9);
+        assertEquals(expectedVwap - 2 * expectedStdDev, vwap.getLowerBand(2), 1e-9);
+    }
+
+    @Test
+    public void testProfile() {
+        VolumeProfile profile = new VolumeProfile(TICK);
+        assertTrue(Double.isNaN(profile.getPointOfControl()));
+
+        profile.add(10.00, 100);
+        profile.add(10.01, 300);
+        profile.add(10.02, 200);
+        profile.add(10.03, 50);
+        profile.add(9.99, 150);
+        profile.add(10.01, 100);
+
+        assertEquals(10.01, profile.getPointOfControl(), 1e-9);
+        assertEquals(400, profile.getVolume(10.01), 0.0);
+        assertEquals(900, profile.getTotalVolume(), 0.0);
+        assertEquals(9.99, profile.getLowPrice(), 1e-9);
+        assertEquals(10.03, profile.getHighPrice(), 1e-9);
+
+        // 70% of 900 = 630: 400 at POC, + 200 above, + 100 below
+        assertEquals(10.00, profile.getValueAreaLow(), 1e-9);
+        assertEquals(10.02, profile.getValueAreaHigh(), 1e-9);
+
+        // far away prices grow the buckets both ways
+        profile.add(5.00, 1000);
+        profile.add(15.00, 10);
+        assertEquals(5.00, profile.getPointOfControl(), 1e-9);
+        assertEquals(400, profile.getVolume(10.01), 0.0);
+        assertEquals(5.00, profile.getLowPrice(), 1e-9);
+        assertEquals(15.00, profile.getHighPrice(), 1e-9);
+    }
+
+    @Test
+    public void testRandomProfileAgainstBruteForce() {
+        Random random = new Random(7);
+        VolumeProfile profile = new VolumeProfile(TICK);
+        double[] volumes = new double[2000];
+        int base = 9000;
+
+        double price = 100;
+        for (int i = 0; i < 5000; i++) {
+            price = Math.max(91, Math.min(109, price + random.nextGaussian() * 0.05));
+            long bucket = Math.round(price / TICK);
+            double size = 1 + random.nextInt(100);
+            profile.add(price, size);
+            volumes[(int) (bucket - base)] += size;
+
+            int poc = 0;
+            for (int b = 1; b < volumes.length; b++) {
+                if (volumes[b] > volumes[poc]) {
+                    poc = b;
+                }
+            }
+            assertEquals(volumes[poc], profile.getVolume(profile.getPointOfControl()), 0.0);
+
+            if (i % 100 == 0) {
+                int low = (int) Math.round(profile.getValueAreaLow() / TICK) - base;
+                int high = (int) Math.round(profile.getValueAreaHigh() / TICK) - base;
+                double inArea = 0;
+                for (int b = low; b <= high; b++) {
+                    inArea += volumes[b];
+                }
+                assertTrue(inArea >= profile.getTotalVolume() * VolumeProfile.DEFAULT_VALUE_AREA_PCT);
+                assertTrue(low <= poc && poc <= high);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateFromTape() {
+        TradeTape tape = new TradeTape(16);
+        SessionVolume session = new SessionVolume(TICK);
+
+        tape.add(10.00, 100, 1000, 100, 10.00);
+        tape.add(10.02, 300, 2000, 400, 10.015);
+        session.update(tape);
+        assertEquals(10.015, session.getVwap().getVwap(), 1e-9);
+
+        // only new trades are read
+        session.update(tape);
+        assertEquals(400, session.getVwap().getVolume(), 0.0);
+
+        tape.add(10.01, 100, 3000, 500, 10.014);
+        session.update(tape);
+        assertEquals(500, session.getProfile().getTotalVolume(), 0.0);
+        assertEquals(10.02, session.getProfile().getPointOfControl(), 1e-9);
+
+        session.reset();
+        assertTrue(Double.isNaN(session.getVwap().getVwap()));
+        assertTrue(Double.isNaN(session.getProfile().getPointOfControl()));
+    }
+}
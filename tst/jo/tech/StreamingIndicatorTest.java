@@ -0,0 +1,187 @@
+package jo.tech;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tictactec.ta.lib.Core;
+import com.tictactec.ta.lib.MInteger;
+
+import jo.model.Bar;
+import jo.model.BarType;
+import jo.model.Bars;
+
+/*
+ * Streaming indicators against TA-Lib run over the whole series
+ */
+public class StreamingIndicatorTest {
+    private static final int SIZE = 300;
+    private static final int PERIOD = 14;
+    private static final double EPSILON = 1e-9;
+
+    private final Core talib = new Core();
+    private double[] high;
+    private double[] low;
+    private double[] close;
+
+    @Before
+    public void setup() {
+        Random random = new Random(42);
+        high = new double[SIZE];
+        low = new double[SIZE];
+        close = new double[SIZE];
+
+        double price = 100;
+        for (int i = 0; i < SIZE; i++) {
+            price += random.nextGaussian();
+            close[i] = price;
+            high[i] = price + random.nextDouble();
+            low[i] = price - random.nextDouble();
+        }
+    }
+
+    @Test
+    public void ema() {
+        Bars bars = new Bars();
+        EMA ema0 = new EMA(bars, BarType.CLOSE, PERIOD, 0);
+        EMA ema2 = new EMA(bars, BarType.CLOSE, PERIOD, 2);
+
+        double[] expected = expand(SIZE, (beg, nb, out) -> talib.ema(0, SIZE - 1, close, PERIOD, beg, nb, out));
+        for (int i = 0; i < SIZE; i++) {
+            addBar(bars, i);
+            assertValue(expected, i, ema0.get());
+            assertValue(expected, i - 2, ema2.get());
+        }
+    }
+
+    @Test
+    public void sma() {
+        Bars bars = new Bars();
+        SMA sma0 = new SMA(bars, BarType.CLOSE, PERIOD, 0);
+        SMA sma1 = new SMA(bars, BarType.CLOSE, PERIOD, 1);
+
+        double[] expected = expand(SIZE, (beg, nb, out) -> talib.sma(0, SIZE - 1, close, PERIOD, beg, nb, out));
+        for (int i = 0; i < SIZE; i++) {
+            addBar(bars, i);
+            assertValue(expected, i, sma0.get());
+            assertValue(expected, i - 1, sma1.get());
+        }
+    }
+
+    @Test
+    public void atr() {
+        Bars bars = new Bars();
+        ATR atr0 = new ATR(bars, PERIOD, 0);
+        ATR atr1 = new ATR(bars, PERIOD, 1);
+
+        double[] expected = expand(SIZE, (beg, nb, out) -> talib.atr(0, SIZE - 1, high, low, close, PERIOD, beg, nb, out));
+        for (int i = 0; i < SIZE; i++) {
+            addBar(bars, i);
+            assertValue(expected, i, atr0.get());
+            assertValue(expected, i - 1, atr1.get());
+        }
+    }
+
+    @Test
+    public void atrFlex() {
+        Bars bars = new Bars();
+        ATRFlex atr = new ATRFlex(bars, PERIOD, 0);
+
+        double[] expected = expand(SIZE, (beg, nb, out) -> talib.atr(0, SIZE - 1, high, low, close, PERIOD, beg, nb, out));
+        for (int i = 0; i < SIZE; i++) {
+            addBar(bars, i);
+            if (i == 0) {
+                assertNull(atr.get());
+            } else if (i < PERIOD) {
+                // shorter period over the available bars
+                int period = i;
+                double[] flex = expand(i + 1, (beg, nb, out) -> talib.atr(period, period, high, low, close, period, beg, nb, out));
+                assertValue(flex, period, atr.get());
+            } else {
+                assertValue(expected, i, atr.get());
+            }
+        }
+    }
+
+    @Test
+    public void sharesSeries() {
+        Bars bars = new Bars();
+        Indicators indicators = Indicators.of(bars);
+
+        assertSame(indicators.ema(BarType.CLOSE, PERIOD), indicators.ema(BarType.CLOSE, PERIOD));
+        assertNotSame(indicators.ema(BarType.CLOSE, PERIOD), indicators.ema(BarType.HIGH, PERIOD));
+        assertNotSame(indicators.atr(PERIOD), indicators.atrFlex(PERIOD));
+
+        for (int offset = 0; offset < 20; offset++) {
+            new ATR(bars, PERIOD, offset);
+        }
+        assertEquals(4, indicators.size());
+    }
+
+    @Test
+    public void startsOverAfterEviction() {
+        int capacity = 50;
+        Bars bars = new Bars(capacity);
+        EMA ema = new EMA(bars, BarType.CLOSE, PERIOD, 0);
+
+        for (int i = 0; i < 20; i++) {
+            addBar(bars, i);
+        }
+        assertNotNull(ema.get());
+
+        // not seen bars are evicted, restarts from the first retained bar
+        for (int i = 20; i < SIZE; i++) {
+            addBar(bars, i);
+        }
+        int first = bars.getFirstIndex();
+        assertTrue(first > 20);
+
+        int size = SIZE - first;
+        double[] retained = new double[size];
+        System.arraycopy(close, first, retained, 0, size);
+        double[] expected = expand(size, (beg, nb, out) -> talib.ema(0, size - 1, retained, PERIOD, beg, nb, out));
+        assertEquals(expected[size - 1], ema.get(), EPSILON);
+    }
+
+    private void addBar(Bars bars, int i) {
+        Bar bar = new Bar();
+        bar.setTime(i);
+        bar.setHigh(high[i]);
+        bar.setLow(low[i]);
+        bar.setOpen(close[i]);
+        bar.setClose(close[i]);
+        bars.addBar(bar);
+    }
+
+    private static void assertValue(double[] expected, int i, Double actual) {
+        if (i < 0 || Double.isNaN(expected[i])) {
+            assertNull("index " + i, actual);
+        } else {
+            assertNotNull("index " + i, actual);
+            assertEquals("index " + i, expected[i], actual, EPSILON);
+        }
+    }
+
+    /*
+     * TA-Lib output spread to the bar indexes, NaN where there is no value
+     */
+    private static double[] expand(int size, TalibCall call) {
+        MInteger beg = new MInteger();
+        MInteger nb = new MInteger();
+        double[] out = new double[size];
+        call.run(beg, nb, out);
+
+        double[] values = new double[size];
+        Arrays.fill(values, Double.NaN);
+        System.arraycopy(out, 0, values, beg.value, nb.value);
+        return values;
+    }
+
+    private interface TalibCall {
+        void run(MInteger beg, MInteger nb, double[] out);
+    }
+}
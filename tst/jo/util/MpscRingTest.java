@@ -0,0 +1,152 @@
+package jo.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MpscRingTest {
+
+    @Test
+    public void testCapacityIsPowerOfTwo() {
+        assertEquals(1, new MpscRing<Integer>(1, OverflowPolicy.DROP_NEWEST).getCapacity());
+        assertEquals(8, new MpscRing<Integer>(5, OverflowPolicy.DROP_NEWEST).getCapacity());
+        assertEquals(65536, new MpscRing<Integer>(64000, OverflowPolicy.DROP_NEWEST).getCapacity());
+    }
+
+    @Test
+    public void testDropNewestCounts() {
+        MpscRing<Integer> ring = new MpscRing<>(8, OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i < 8, ring.offer(i));
+        }
+        assertEquals(12, ring.getDropped());
+        assertEquals(8, ring.size());
+
+        List<Integer> out = new ArrayList<>();
+        assertEquals(8, ring.drainTo(out, 100));
+        assertEquals(list(0, 8), out);
+
+        // slots reused
+        assertTrue(ring.offer(100));
+        out.clear();
+        ring.drainTo(out, 100);
+        assertEquals(100, (int) out.get(0));
+    }
+
+    @Test
+    public void testConflateKeepsLatestPerKey() {
+        // key: value % 10, values >= 1000 have no key
+        MpscRing<Integer> ring = new MpscRing<>(4, OverflowPolicy.CONFLATE, v -> v >= 1000 ? -1 : v % 10, 10);
+        for (int i = 0; i < 4; i++) {
+            ring.offer(i);
+        }
+        // full: conflated per key
+        ring.offer(11);
+        ring.offer(21);
+        ring.offer(12);
+        assertFalse(ring.offer(1000));
+        assertEquals(1, ring.getConflated());
+        assertEquals(1, ring.getDropped());
+
+        List<Integer> out = new ArrayList<>();
+        ring.drainTo(out, 2);
+        assertEquals(list(0, 2), out);
+
+        // key 1 is still conflated: goes after the ring events
+        ring.offer(31);
+        ring.offer(5);
+        out.clear();
+        ring.drainTo(out, 100);
+        assertEquals(Arrays.asList(2, 3, 5, 31, 12), out);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void testProducersInOrder() throws Exception {
+        int producers = 4;
+        int events = 50_000;
+        MpscRing<long[]> ring = new MpscRing<>(64, OverflowPolicy.BLOCK);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    assertTrue(ring.offer(new long[] { producer, i }));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] next = new long[producers];
+        List<long[]> out = new ArrayList<>();
+        int received = 0;
+        while (received < producers * events) {
+            assertTrue(ring.await(10_000_000_000L));
+            out.clear();
+            received += ring.drainTo(out, 1000);
+            for (long[] e : out) {
+                assertEquals(next[(int) e[0]]++, e[1]);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, ring.getDropped());
+        assertTrue(ring.getBlocked() > 0);
+    }
+
+    @Test
+    public void testOfferAfterClose() throws Exception {
+        MpscRing<Integer> ring = new MpscRing<>(4, OverflowPolicy.BLOCK);
+        for (int i = 0; i < 4; i++) {
+            ring.offer(i);
+        }
+
+        // full, nobody drains: the blocked producer returns on close
+        Thread producer = new Thread(() -> ring.offer(4));
+        producer.start();
+        while (ring.getBlocked() == 0) {
+            Thread.yield();
+        }
+        ring.close();
+        producer.join(10_000);
+        assertFalse(producer.isAlive());
+
+        assertFalse(ring.offer(5));
+        assertEquals(2, ring.getDropped());
+        List<Integer> out = new ArrayList<>();
+        assertEquals(4, ring.drainTo(out, 100));
+        assertFalse(ring.offer(6));
+        assertEquals(0, ring.size());
+        assertEquals(3, ring.getDropped());
+    }
+
+    @Test
+    public void testAwaitTimeoutAndInterrupt() throws Exception {
+        MpscRing<Integer> ring = new MpscRing<>(8, OverflowPolicy.DROP_NEWEST);
+        assertFalse(ring.await(1_000_000));
+
+        Thread.currentThread().interrupt();
+        try {
+            ring.await();
+            fail();
+        } catch (InterruptedException e) {
+            // expected
+        }
+    }
+
+    private static List<Integer> list(int from, int to) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
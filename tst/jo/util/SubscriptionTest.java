@@ -0,0 +1,85 @@
+package jo.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SubscriptionTest {
+    @Test
+    public void testEventBeforeAwaitIsNotLost() {
+        Sequencer quotes = new Sequencer();
+        Sequencer bars = new Sequencer();
+        Subscription subscription = new Subscription(quotes, bars);
+
+        quotes.publish();
+        quotes.publish();
+
+        // published while "busy", seen once
+        assertTrue(subscription.await());
+        assertTrue(subscription.isUpdated(quotes));
+        assertFalse(subscription.isUpdated(bars));
+        assertFalse(subscription.poll());
+    }
+
+    @Test
+    public void testEventsBeforeSubscribingAreIgnored() {
+        Sequencer quotes = new Sequencer();
+        quotes.publish();
+
+        Subscription subscription = new Subscription(quotes);
+        assertFalse(subscription.poll());
+    }
+
+    @Test
+    public void testStopAndInterruptEndAwait() throws Exception {
+        Sequencer quotes = new Sequencer();
+        Subscription subscription = new Subscription(quotes);
+
+        AtomicBoolean result = new AtomicBoolean(true);
+        Thread consumer = new Thread(() -> result.set(subscription.await()));
+        consumer.start();
+        quotes.stop();
+        consumer.join(5000);
+        assertFalse(consumer.isAlive());
+        assertFalse(result.get());
+
+        Subscription other = new Subscription(new Sequencer());
+        result.set(true);
+        Thread interrupted = new Thread(() -> result.set(other.await()));
+        interrupted.start();
+        interrupted.interrupt();
+        interrupted.join(5000);
+        assertFalse(interrupted.isAlive());
+        assertFalse(result.get());
+    }
+
+    @Test
+    public void testConsumerSeesLastEvent() throws Exception {
+        int events = 1_000_000;
+        Sequencer sequencer = new Sequencer();
+        Subscription subscription = new Subscription(sequencer);
+        AtomicLong last = new AtomicLong();
+        AtomicLong wakeUps = new AtomicLong();
+
+        Thread consumer = new Thread(() -> {
+            while (last.get() < events && subscription.await()) {
+                wakeUps.incrementAndGet();
+                last.set(sequencer.get());
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < events; i++) {
+            sequencer.publish();
+        }
+
+        // the last publish must wake the consumer even if it raced with the previous ones
+        consumer.join(10_000);
+        assertFalse("Consumer missed the last event", consumer.isAlive());
+        assertEquals(events, last.get());
+        assertTrue(wakeUps.get() <= events);
+    }
+}